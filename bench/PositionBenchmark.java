@@ -0,0 +1,72 @@
+import java.awt.Point;
+import java.util.Random;
+
+/**
+ * PositionBenchmark class. Times converting scaled points to positions with the batch
+ * kernel, LinePoint.getPositions, against a Point per conversion through
+ * LinePoint.getAbsolutePosition, and reports the largest error of the kernel.
+ *
+ * Digital Doily - COMP1206 Coursework
+ * @author David Jones [dsj1n15]
+ */
+public class PositionBenchmark {
+	private static final int[] POINT_COUNTS = {10000, 1000000};  // Sizes of point lists timed
+	private static final int RADIUS = 2500;                      // Radius positions are scaled by
+	private static final int SECTORS = 12;                       // Sector count of positions
+	private static final int WARMUP_RUNS = 5;                    // Runs before timing starts
+	private static final int TIMED_RUNS = 10;                    // Runs the best time is taken from
+
+	/**
+	 * Run the benchmark.
+	 * @param args Unused
+	 */
+	public static void main(String[] args) {
+		double sectorAngle = DoilyUtilities.getSectorAngle(SECTORS);
+		Random random = new Random(1);
+		for (int count : POINT_COUNTS) {
+			// Random points over several turns, as held by long lines
+			double[] orbitScales = new double[count];
+			double[] clockwiseScales = new double[count];
+			for (int i=0; i < count; i++) {
+				orbitScales[i] = random.nextDouble();
+				clockwiseScales[i] = (random.nextDouble()*2 - 1)*SECTORS*4;
+			}
+			float[] out = new float[count*2];
+
+			long pointTime = Long.MAX_VALUE;
+			long batchTime = Long.MAX_VALUE;
+			long sink = 0;
+			for (int run=0; run < WARMUP_RUNS + TIMED_RUNS; run++) {
+				long start = System.nanoTime();
+				for (int i=0; i < count; i++) {
+					Point p = LinePoint.getAbsolutePosition(orbitScales[i], clockwiseScales[i],
+							RADIUS, sectorAngle);
+					sink += p.x + p.y;
+				}
+				long middle = System.nanoTime();
+				LinePoint.getPositions(orbitScales, clockwiseScales, 0, count, RADIUS, sectorAngle,
+						out, 0);
+				long end = System.nanoTime();
+				sink += (long) out[count];
+				if (run >= WARMUP_RUNS) {
+					pointTime = Math.min(pointTime, middle - start);
+					batchTime = Math.min(batchTime, end - middle);
+				}
+			}
+
+			// Largest error of the kernel on the unit circle
+			double maxError = 0;
+			LinePoint.getPositions(orbitScales, clockwiseScales, 0, count, 1, sectorAngle, out, 0);
+			for (int i=0; i < count; i++) {
+				double angle = clockwiseScales[i]*sectorAngle;
+				maxError = Math.max(maxError, Math.abs(out[i*2] - Math.sin(angle)*orbitScales[i]));
+				maxError = Math.max(maxError, Math.abs(out[i*2+1] + Math.cos(angle)*orbitScales[i]));
+			}
+
+			System.out.printf("%8d points: getAbsolutePosition %6.2f ns/pt, getPositions %6.2f ns/pt "
+					+ "(%.2fx), max unit error %.1e [%d]%n", count, pointTime/(double) count,
+					batchTime/(double) count, pointTime/(double) batchTime, maxError, sink & 1);
+		}
+	}
+
+}
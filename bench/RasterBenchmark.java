@@ -0,0 +1,117 @@
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * RasterBenchmark class. Times drawing the lines of random doilies in the raster render
+ * mode against Java2D paths, and counts the pixels where the two differ.
+ *
+ * Digital Doily - COMP1206 Coursework
+ * @author David Jones [dsj1n15]
+ */
+public class RasterBenchmark {
+	private static final Dimension SIZE = new Dimension(800, 800); // Size lines are drawn at
+	private static final int[] SECTOR_COUNTS = {1, 12, 50};      // Sector counts timed
+	private static final int[] PEN_SCALES = {1, 5, 20};          // Pen scales timed
+	private static final int LINE_COUNT = 40;                    // Lines in each doily
+	private static final int POINTS_PER_LINE = 150;              // Points captured per line
+	private static final int WARMUP_RUNS = 3;                    // Runs before timing starts
+	private static final int TIMED_RUNS = 5;                     // Runs the best time is taken from
+
+	/**
+	 * Run the benchmark.
+	 * @param args Unused
+	 */
+	public static void main(String[] args) {
+		for (int sectors : SECTOR_COUNTS) {
+			for (boolean reflect : new boolean[] {false, true}) {
+				for (int penScale : PEN_SCALES) {
+					DoilyState doily = createDoily(sectors, reflect, penScale);
+					BufferedImage paths = null;
+					BufferedImage raster = null;
+					long pathsTime = Long.MAX_VALUE;
+					long rasterTime = Long.MAX_VALUE;
+					for (int run=0; run < WARMUP_RUNS + TIMED_RUNS; run++) {
+						long start = System.nanoTime();
+						paths = drawLines(doily, DoilyDrawer.RENDER_PATHS);
+						long middle = System.nanoTime();
+						raster = drawLines(doily, DoilyDrawer.RENDER_RASTER);
+						long end = System.nanoTime();
+						if (run >= WARMUP_RUNS) {
+							pathsTime = Math.min(pathsTime, middle - start);
+							rasterTime = Math.min(rasterTime, end - middle);
+						}
+					}
+
+					// Count pixels inked by either mode, and those that differ
+					int inked = 0;
+					int differing = 0;
+					for (int y=0; y < SIZE.height; y++) {
+						for (int x=0; x < SIZE.width; x++) {
+							int pathsRGB = paths.getRGB(x, y);
+							int rasterRGB = raster.getRGB(x, y);
+							if (pathsRGB != 0 || rasterRGB != 0) {
+								inked++;
+							}
+							if (pathsRGB != rasterRGB) {
+								differing++;
+							}
+						}
+					}
+
+					System.out.printf("%2d sectors, reflect %-5s, pen %2d: paths %7.1f ms, raster "
+							+ "%6.1f ms (%.1fx), %.2f%% of inked pixels differ%n", sectors, reflect,
+							penScale, pathsTime/1e6, rasterTime/1e6, pathsTime/(double) rasterTime,
+							100.0*differing/Math.max(inked, 1));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Create a doily of random walks drawn without anti-aliasing, as the raster mode requires.
+	 * @param sectors Number of sectors
+	 * @param reflect Whether lines are reflected
+	 * @param penScale Pen scale of every line
+	 * @return The doily
+	 */
+	private static DoilyState createDoily(int sectors, boolean reflect, int penScale) {
+		DoilySettings settings = new DoilySettings();
+		settings.setSectors(sectors);
+		settings.setAntiAlias(false);
+		Random random = new Random(sectors*31 + penScale);
+		ArrayList<Line> lines = new ArrayList<Line>();
+		for (int i=0; i < LINE_COUNT; i++) {
+			Line line = new Line(penScale, new Color(random.nextInt() | 0xFF000000), reflect, false);
+			int x = random.nextInt(600) - 300;
+			int y = random.nextInt(600) - 300;
+			for (int j=0; j < POINTS_PER_LINE; j++) {
+				x += random.nextInt(9) - 4;
+				y += random.nextInt(9) - 4;
+				line.addPoint(new Point(x, y), SIZE, settings);
+			}
+			lines.add(line);
+		}
+		return new DoilyState(settings, lines);
+	}
+
+	/**
+	 * Draw the lines of a doily onto an empty image using a render mode.
+	 * @param doily Doily to draw
+	 * @param renderMode Render mode to draw with
+	 * @return The image
+	 */
+	private static BufferedImage drawLines(DoilyState doily, int renderMode) {
+		doily.settings.setRenderMode(renderMode);
+		BufferedImage image = new BufferedImage(SIZE.width, SIZE.height, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = image.createGraphics();
+		new DoilyDrawer(doily).drawLines(g, SIZE);
+		g.dispose();
+		return image;
+	}
+
+}
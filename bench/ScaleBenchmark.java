@@ -0,0 +1,121 @@
+import java.awt.Dimension;
+import java.awt.Point;
+import java.util.Random;
+
+/**
+ * ScaleBenchmark class. Times scaling captured points with LinePoint.scalePoint and
+ * LinePoint.scalePoints against the previous scalePoint, which searched every sector for
+ * the one holding a point, at the fewest and most sectors allowed.
+ *
+ * Digital Doily - COMP1206 Coursework
+ * @author David Jones [dsj1n15]
+ */
+public class ScaleBenchmark {
+	private static final int POINT_COUNT = 1000000;              // Points scaled per run
+	private static final Dimension SIZE = new Dimension(700, 700); // Dimension points are recorded in
+	private static final int WARMUP_RUNS = 5;                    // Runs before timing starts
+	private static final int TIMED_RUNS = 10;                    // Runs the best time is taken from
+
+	/**
+	 * Run the benchmark.
+	 * @param args Unused
+	 */
+	public static void main(String[] args) {
+		// Random points around the centre, some outside the circle bounds
+		Random random = new Random(1);
+		int[] coords = new int[POINT_COUNT*2];
+		Point[] points = new Point[POINT_COUNT];
+		for (int i=0; i < POINT_COUNT; i++) {
+			coords[i*2] = random.nextInt(600) - 300;
+			coords[i*2+1] = random.nextInt(600) - 300;
+			points[i] = new Point(coords[i*2], coords[i*2+1]);
+		}
+		double[] orbitScales = new double[POINT_COUNT];
+		double[] clockwiseScales = new double[POINT_COUNT];
+
+		for (int sectors : new int[] {DoilySettings.MIN_SECTORS, DoilySettings.MAX_POLAR_SECTORS}) {
+			DoilySettings settings = new DoilySettings();
+			settings.setSectors(sectors);
+			settings.setCircleBounded(true);
+
+			long searchTime = Long.MAX_VALUE;
+			long pointTime = Long.MAX_VALUE;
+			long batchTime = Long.MAX_VALUE;
+			int mismatches = 0;
+			for (int run=0; run < WARMUP_RUNS + TIMED_RUNS; run++) {
+				long start = System.nanoTime();
+				LinePoint last = null;
+				for (int i=0; i < POINT_COUNT; i++) {
+					LinePoint point = searchScalePoint(points[i], SIZE, settings, last);
+					last = (point == null) ? last : point;
+				}
+				long searched = System.nanoTime();
+				last = null;
+				int stored = 0;
+				for (int i=0; i < POINT_COUNT; i++) {
+					LinePoint point = LinePoint.scalePoint(points[i], SIZE, settings, last);
+					if (point != null) {
+						last = point;
+						// Single scaling must agree with the batch of the run before
+						if (run == WARMUP_RUNS && (point.getOrbitScale() != orbitScales[stored]
+								|| point.getClockwiseScale() != clockwiseScales[stored])) {
+							mismatches++;
+						}
+						stored++;
+					}
+				}
+				long scaled = System.nanoTime();
+				LinePoint.scalePoints(coords, POINT_COUNT, new LinePoint.ScaleConstraints(SIZE, settings),
+						Double.NaN, orbitScales, clockwiseScales, 0);
+				long end = System.nanoTime();
+				if (run >= WARMUP_RUNS) {
+					searchTime = Math.min(searchTime, searched - start);
+					pointTime = Math.min(pointTime, scaled - searched);
+					batchTime = Math.min(batchTime, end - scaled);
+				}
+			}
+
+			System.out.printf("%4d sectors: sector search %6.1f ns/pt, scalePoint %6.1f ns/pt, "
+					+ "scalePoints %6.1f ns/pt%n", sectors, searchTime/(double) POINT_COUNT,
+					pointTime/(double) POINT_COUNT, batchTime/(double) POINT_COUNT);
+			if (mismatches > 0) {
+				System.out.printf("  %d points scaled differently in a batch%n", mismatches);
+			}
+		}
+	}
+
+	/**
+	 * Scale a point as LinePoint.scalePoint did before it found sectors in constant time,
+	 * checking every sector in turn for the one holding the point's angle.
+	 * @param absolute Point centred around [0,0]
+	 * @param d Dimension point was recorded in
+	 * @param settings Settings object used for recording
+	 * @param lastPoint An existing point used to calculate point wrapping (null is valid)
+	 * @return Scaled point if valid, else null
+	 */
+	private static LinePoint searchScalePoint(Point absolute, Dimension d,
+			DoilySettings settings, LinePoint lastPoint) {
+		int radius = DoilyUtilities.getRadius(d);
+		int sectors = settings.getSectors();
+		double sectorAngle = DoilyUtilities.getSectorAngle(sectors);
+		double distance = Math.sqrt(Math.pow(absolute.x, 2) + Math.pow(absolute.y, 2));
+		double radPos = (Math.atan2(absolute.y, absolute.x) + 2.5*Math.PI) % (2*Math.PI);
+		for (int sector=0; sector < sectors; sector++) {
+			double lowerAngle = sectorAngle*sector;
+			double upperAngle = lowerAngle + sectorAngle;
+			double maxDistance = radius - DoilyUtilities.getPenSize(settings.getPenScale(), d)/2;
+			if (lowerAngle <= radPos && upperAngle > radPos
+					&& (!settings.isCircleBounded() || distance < maxDistance)) {
+				double clockwiseScale = radPos/sectorAngle;
+				if (lastPoint != null) {
+					int wrapCount = (int) Math.floor(((lastPoint.getClockwiseScale() - clockwiseScale)
+							/ sectors)+0.5);
+					clockwiseScale += sectors*wrapCount;
+				}
+				return new LinePoint(distance/radius, clockwiseScale);
+			}
+		}
+		return null;
+	}
+
+}
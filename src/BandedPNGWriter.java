@@ -0,0 +1,169 @@
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * BandedPNGWriter class. Streams an RGB PNG to an output stream a band of rows at a time
+ * so the full image never has to be held in memory.
+ * 
+ * Digital Doily - COMP1206 Coursework
+ * @author David Jones [dsj1n15]
+ */
+public class BandedPNGWriter {
+	// PNG format constants
+	private static final byte[] SIGNATURE = {(byte) 137, 80, 78, 71, 13, 10, 26, 10};
+	private static final int BIT_DEPTH = 8;
+	private static final int COLOR_TYPE_RGB = 2;
+	private static final int FILTER_SUB = 1;
+	private static final int BYTES_PER_PIXEL = 3;
+	private static final int CHUNK_SIZE = 1 << 16;   // Maximum size of written IDAT chunks
+
+	// Instance variables
+	private DataOutputStream out;                     // Stream to write chunks to
+	private Deflater compressor;                      // Compressor of deflater, ended when done
+	private DeflaterOutputStream deflater;            // Compresses filtered rows into IDAT chunks
+	private int width;                                // Width of image in pixels
+	private int height;                               // Height of image in pixels
+	private int rowsWritten;                          // Rows written so far
+	private byte[] row;                               // Filtered row buffer
+
+	/**
+	 * Instantiates a new banded PNG writer and writes the PNG header.
+	 * @param out Stream to write the PNG to
+	 * @param width Width of the image
+	 * @param height Height of the image
+	 * @throws IOException Signals that an I/O exception has occurred
+	 */
+	public BandedPNGWriter(OutputStream out, int width, int height) throws IOException {
+		if (width <= 0 || height <= 0) {
+			throw new IllegalArgumentException("PNG dimensions must be positive");
+		}
+		this.out = new DataOutputStream(out);
+		this.width = width;
+		this.height = height;
+		this.row = new byte[1 + width*BYTES_PER_PIXEL];
+
+		// Write signature and header chunk
+		this.out.write(SIGNATURE);
+		ByteArrayOutputStream header = new ByteArrayOutputStream();
+		DataOutputStream headerData = new DataOutputStream(header);
+		headerData.writeInt(width);
+		headerData.writeInt(height);
+		headerData.writeByte(BIT_DEPTH);
+		headerData.writeByte(COLOR_TYPE_RGB);
+		headerData.writeByte(0); // Compression method
+		headerData.writeByte(0); // Filter method
+		headerData.writeByte(0); // No interlacing
+		writeChunk("IHDR", header.toByteArray(), 0, header.size());
+
+		// All image data is compressed as a single stream split across IDAT chunks
+		compressor = new Deflater();
+		deflater = new DeflaterOutputStream(new ChunkOutputStream(), compressor, CHUNK_SIZE);
+	}
+
+	/**
+	 * Writes the first rows of a band to the image.
+	 * @param band Image of TYPE_3BYTE_BGR and the same width as the PNG
+	 * @param rows Number of rows to take from the band
+	 * @throws IOException Signals that an I/O exception has occurred
+	 */
+	public void writeRows(BufferedImage band, int rows) throws IOException {
+		if (band.getType() != BufferedImage.TYPE_3BYTE_BGR || band.getWidth() != width) {
+			throw new IllegalArgumentException("Band must be a TYPE_3BYTE_BGR image of the PNG width");
+		}
+		if (rows > band.getHeight() || rowsWritten + rows > height) {
+			throw new IllegalArgumentException("Too many rows written to PNG");
+		}
+		byte[] data = ((DataBufferByte) band.getRaster().getDataBuffer()).getData();
+		int stride = width*BYTES_PER_PIXEL;
+		for (int y=0; y < rows; y++) {
+			// Convert BGR to RGB using the sub filter (difference from pixel to the left)
+			int offset = y*stride;
+			row[0] = FILTER_SUB;
+			for (int x=0; x < stride; x += BYTES_PER_PIXEL) {
+				for (int c=0; c < BYTES_PER_PIXEL; c++) {
+					int value = data[offset + x + (BYTES_PER_PIXEL-1-c)];
+					int left = (x == 0) ? 0 : data[offset + x - BYTES_PER_PIXEL + (BYTES_PER_PIXEL-1-c)];
+					row[1 + x + c] = (byte) (value - left);
+				}
+			}
+			deflater.write(row);
+		}
+		rowsWritten += rows;
+	}
+
+	/**
+	 * Finishes the image data and writes the end chunk. Does not close the underlying stream.
+	 * The compressor is ended whether or not this succeeds.
+	 * @throws IOException Signals that an I/O exception has occurred
+	 */
+	public void finish() throws IOException {
+		try {
+			if (rowsWritten != height) {
+				throw new IllegalStateException("PNG finished before all rows were written");
+			}
+			deflater.finish();
+			writeChunk("IEND", new byte[0], 0, 0);
+			out.flush();
+		} finally {
+			end();
+		}
+	}
+
+	/**
+	 * Releases the native memory of the compressor. No more rows can be written after. 
+	 * Must be called if an image is abandoned before it is finished.
+	 */
+	public void end() {
+		compressor.end();
+	}
+
+	/**
+	 * Write a single chunk including its length and checksum.
+	 * @param type Four character chunk type
+	 * @param data Chunk data
+	 * @param offset Offset of chunk data
+	 * @param length Length of data to write
+	 * @throws IOException Signals that an I/O exception has occurred
+	 */
+	private void writeChunk(String type, byte[] data, int offset, int length) throws IOException {
+		byte[] typeBytes = type.getBytes("US-ASCII");
+		CRC32 crc = new CRC32();
+		crc.update(typeBytes);
+		crc.update(data, offset, length);
+		out.writeInt(length);
+		out.write(typeBytes);
+		out.write(data, offset, length);
+		out.writeInt((int) crc.getValue());
+	}
+
+	/**
+	 * Stream that writes all compressed data it receives as IDAT chunks.
+	 * Inner class for BandedPNGWriter.
+	 */
+	private class ChunkOutputStream extends OutputStream {
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] {(byte) b}, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			while (len > 0) {
+				int size = Math.min(len, CHUNK_SIZE);
+				writeChunk("IDAT", b, off, size);
+				off += size;
+				len -= size;
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,16 @@
+/**
+ * CaptureListener interface. Receives the segments of lines captured by a PointCapture.
+ * 
+ * Digital Doily - COMP1206 Coursework
+ * @author David Jones [dsj1n15]
+ */
+public interface CaptureListener {
+
+	/**
+	 * Called from the capture thread whenever a batch of points has been added to a line.
+	 * @param line Line points were added to
+	 * @param start Index of the first point of the earliest segment that changed
+	 */
+	void pointsCaptured(Line line, int start);
+
+}
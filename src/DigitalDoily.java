@@ -10,13 +10,16 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.util.ArrayList;
 
+import javax.swing.ButtonGroup;
 import javax.swing.JButton;
 import javax.swing.JCheckBox;
 import javax.swing.JColorChooser;
+import javax.swing.JComboBox;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.JRadioButton;
 import javax.swing.JScrollPane;
 import javax.swing.JSeparator;
 import javax.swing.JSlider;
@@ -61,11 +64,14 @@ public class DigitalDoily extends JFrame {
 	JCheckBox chkShowRings;
 	JCheckBox chkUseImage;
 	JCheckBox chkAntiAlias;
+	JComboBox<String> cmbRenderMode;
 	JSlider sldPenScale;
 	FixedWidthLabel lblPenScaleValue;
 	JCheckBox chkReflect;
 	JCheckBox chkCircleBound;
 	JCheckBox chkInterpolate;
+	JCheckBox chkDecimate;
+	JCheckBox chkFitCurves;
 
 	/**
 	 * Instantiates a new doily frame.
@@ -116,6 +122,7 @@ public class DigitalDoily extends JFrame {
 		DoilyPanel pnlDisplay = new DoilyPanel();
 		pnlDisplay.setBorder(new BevelBorder(BevelBorder.LOWERED, null, null, null, null));
 		pnlDisplay.setBackground(Color.BLACK);
+		pnlDisplay.setAdaptiveQuality(true);
 		GridBagConstraints gbc_pnlDisplay = new GridBagConstraints();
 		gbc_pnlDisplay.insets = new Insets(5, 5, 5, 0);
 		gbc_pnlDisplay.fill = GridBagConstraints.BOTH;
@@ -240,18 +247,16 @@ public class DigitalDoily extends JFrame {
 
 		sldSectors = new JSlider();
 		sldSectors.setMinimum(DoilySettings.MIN_SECTORS);
-		sldSectors.setMaximum(DoilySettings.MAX_SECTORS);
 		sldSectors.setPaintTicks(true);
 		sldSectors.setPaintLabels(true);
-		sldSectors.setMajorTickSpacing(DoilySettings.MAX_SECTORS-DoilySettings.MIN_SECTORS);
-		sldSectors.setMinorTickSpacing(10);
+		setSectorRange(DoilySettings.MAX_SECTORS);
 		GridBagConstraints gbc_sldSectors = new GridBagConstraints();
 		gbc_sldSectors.gridx = 1;
 		gbc_sldSectors.gridy = 0;
 		pnlSectors.add(sldSectors, gbc_sldSectors);
 
 		// Displays the current sector count
-		lblSectorCount = new FixedWidthLabel(25);
+		lblSectorCount = new FixedWidthLabel(30);
 		GridBagConstraints gbc_lblSectorCount = new GridBagConstraints();
 		gbc_lblSectorCount.anchor = GridBagConstraints.EAST;
 		gbc_lblSectorCount.gridx = 2;
@@ -304,6 +309,82 @@ public class DigitalDoily extends JFrame {
 		gbc_chkAntiAlias.gridy = 6;
 		pnlDrawingControls.add(chkAntiAlias, gbc_chkAntiAlias);
 
+		// [Drawing Controls] <- 'Render Mode' Panel
+		JPanel pnlRenderMode = new JPanel();
+		GridBagConstraints gbc_pnlRenderMode = new GridBagConstraints();
+		gbc_pnlRenderMode.anchor = GridBagConstraints.WEST;
+		gbc_pnlRenderMode.gridwidth = 2;
+		gbc_pnlRenderMode.insets = new Insets(0, 5, 5, 5);
+		gbc_pnlRenderMode.gridx = 0;
+		gbc_pnlRenderMode.gridy = 7;
+		pnlDrawingControls.add(pnlRenderMode, gbc_pnlRenderMode);
+		GridBagLayout gbl_pnlRenderMode = new GridBagLayout();
+		pnlRenderMode.setLayout(gbl_pnlRenderMode);
+
+		JLabel lblRenderMode = new JLabel("Renderer: ");
+		GridBagConstraints gbc_lblRenderMode = new GridBagConstraints();
+		gbc_lblRenderMode.anchor = GridBagConstraints.WEST;
+		gbc_lblRenderMode.gridx = 0;
+		gbc_lblRenderMode.gridy = 0;
+		pnlRenderMode.add(lblRenderMode, gbc_lblRenderMode);
+
+		cmbRenderMode = new JComboBox<String>(DoilyDrawer.RENDER_MODE_NAMES);
+		GridBagConstraints gbc_cmbRenderMode = new GridBagConstraints();
+		gbc_cmbRenderMode.gridx = 1;
+		gbc_cmbRenderMode.gridy = 0;
+		pnlRenderMode.add(cmbRenderMode, gbc_cmbRenderMode);
+
+		// [Drawing Controls] <- Separator
+		JSeparator separator_4 = new JSeparator();
+		GridBagConstraints gbc_separator_4 = new GridBagConstraints();
+		gbc_separator_4.insets = new Insets(0, 5, 5, 5);
+		gbc_separator_4.gridwidth = 2;
+		gbc_separator_4.fill = GridBagConstraints.HORIZONTAL;
+		gbc_separator_4.gridx = 0;
+		gbc_separator_4.gridy = 8;
+		pnlDrawingControls.add(separator_4, gbc_separator_4);
+
+		// [Drawing Controls] <- 'Tool' Panel
+		JPanel pnlTool = new JPanel();
+		GridBagConstraints gbc_pnlTool = new GridBagConstraints();
+		gbc_pnlTool.anchor = GridBagConstraints.WEST;
+		gbc_pnlTool.gridwidth = 2;
+		gbc_pnlTool.insets = new Insets(0, 5, 5, 5);
+		gbc_pnlTool.gridx = 0;
+		gbc_pnlTool.gridy = 9;
+		pnlDrawingControls.add(pnlTool, gbc_pnlTool);
+		GridBagLayout gbl_pnlTool = new GridBagLayout();
+		pnlTool.setLayout(gbl_pnlTool);
+
+		JLabel lblTool = new JLabel("Tool: ");
+		GridBagConstraints gbc_lblTool = new GridBagConstraints();
+		gbc_lblTool.anchor = GridBagConstraints.WEST;
+		gbc_lblTool.gridx = 0;
+		gbc_lblTool.gridy = 0;
+		pnlTool.add(lblTool, gbc_lblTool);
+
+		ButtonGroup grpTool = new ButtonGroup();
+		JRadioButton[] rdoTools = new JRadioButton[DoilyPanel.TOOL_NAMES.length];
+		for (int i=0; i < rdoTools.length; i++) {
+			rdoTools[i] = new JRadioButton(DoilyPanel.TOOL_NAMES[i]);
+			grpTool.add(rdoTools[i]);
+			GridBagConstraints gbc_rdoTool = new GridBagConstraints();
+			gbc_rdoTool.gridx = i+1;
+			gbc_rdoTool.gridy = 0;
+			pnlTool.add(rdoTools[i], gbc_rdoTool);
+		}
+		rdoTools[pnlDisplay.getTool()].setSelected(true);
+
+		// [Drawing Controls] <- 'Delete Selected' Button
+		JButton btnDeleteSelected = new JButton("Delete Selected");
+		GridBagConstraints gbc_btnDeleteSelected = new GridBagConstraints();
+		gbc_btnDeleteSelected.gridwidth = 2;
+		gbc_btnDeleteSelected.fill = GridBagConstraints.HORIZONTAL;
+		gbc_btnDeleteSelected.insets = new Insets(0, 5, 5, 5);
+		gbc_btnDeleteSelected.gridx = 0;
+		gbc_btnDeleteSelected.gridy = 10;
+		pnlDrawingControls.add(btnDeleteSelected, gbc_btnDeleteSelected);
+
 		// ---------------------------------------
 
 		// [Side Panel] <- 'Pen Settings' panel
@@ -374,11 +455,20 @@ public class DigitalDoily extends JFrame {
 		GridBagConstraints gbc_chkReflect = new GridBagConstraints();
 		gbc_chkReflect.anchor = GridBagConstraints.WEST;
 		gbc_chkReflect.insets = new Insets(0, 5, 5, 5);
-		gbc_chkReflect.gridwidth = 2;
 		gbc_chkReflect.gridx = 0;
 		gbc_chkReflect.gridy = 2;
 		pnlPenSettings.add(chkReflect, gbc_chkReflect);
 
+		// [Pen Settings] <- 'Decimate' Check Box
+		chkDecimate = new JCheckBox("Decimate");
+		GridBagConstraints gbc_chkDecimate = new GridBagConstraints();
+		gbc_chkDecimate.anchor = GridBagConstraints.WEST;
+		gbc_chkDecimate.fill = GridBagConstraints.HORIZONTAL;
+		gbc_chkDecimate.insets = new Insets(0, 0, 5, 0);
+		gbc_chkDecimate.gridx = 1;
+		gbc_chkDecimate.gridy = 2;
+		pnlPenSettings.add(chkDecimate, gbc_chkDecimate);
+
 		// [Pen Settings] <- 'Bind to Circle' Check Box
 		chkCircleBound = new JCheckBox("Bind to Circle");
 		GridBagConstraints gbc_chkCircleBound = new GridBagConstraints();
@@ -398,6 +488,15 @@ public class DigitalDoily extends JFrame {
 		gbc_chkInterpolate.gridy = 3;
 		pnlPenSettings.add(chkInterpolate, gbc_chkInterpolate);
 
+		// [Pen Settings] <- 'Fit Curves' Check Box
+		chkFitCurves = new JCheckBox("Fit Curves");
+		GridBagConstraints gbc_chkFitCurves = new GridBagConstraints();
+		gbc_chkFitCurves.anchor = GridBagConstraints.WEST;
+		gbc_chkFitCurves.insets = new Insets(0, 5, 5, 5);
+		gbc_chkFitCurves.gridx = 0;
+		gbc_chkFitCurves.gridy = 4;
+		pnlPenSettings.add(chkFitCurves, gbc_chkFitCurves);
+
 		// [Pen Settings] <- Separator
 		JSeparator separator_3 = new JSeparator();
 		GridBagConstraints gbc_separator_3 = new GridBagConstraints();
@@ -405,7 +504,7 @@ public class DigitalDoily extends JFrame {
 		gbc_separator_3.gridwidth = 2;
 		gbc_separator_3.insets = new Insets(0, 5, 5, 5);
 		gbc_separator_3.gridx = 0;
-		gbc_separator_3.gridy = 4;
+		gbc_separator_3.gridy = 5;
 		pnlPenSettings.add(separator_3, gbc_separator_3);
 
 		// [Pen Settings] <- 'Preview' Panel
@@ -416,7 +515,7 @@ public class DigitalDoily extends JFrame {
 		gbc_pnlPreviewHolder.insets = new Insets(0, 5, 5, 5);
 		gbc_pnlPreviewHolder.fill = GridBagConstraints.HORIZONTAL;
 		gbc_pnlPreviewHolder.gridx = 0;
-		gbc_pnlPreviewHolder.gridy = 5;
+		gbc_pnlPreviewHolder.gridy = 6;
 		pnlPenSettings.add(pnlPreviewHolder, gbc_pnlPreviewHolder);
 		GridBagLayout gbl_pnlPreviewHolder = new GridBagLayout();
 		gbl_pnlPreviewHolder.columnWeights = new double[]{0.0, 1.0};
@@ -565,7 +664,7 @@ public class DigitalDoily extends JFrame {
 		chkShowSeparators.addChangeListener(new ChangeListener() {
 			public void stateChanged(ChangeEvent e) {
 				doily.settings.setShowSeparators(chkShowSeparators.isSelected());
-				pnlDisplay.redraw();
+				pnlDisplay.repaint();
 			}
 		});
 
@@ -574,7 +673,7 @@ public class DigitalDoily extends JFrame {
 		chkShowRings.addChangeListener(new ChangeListener() {
 			public void stateChanged(ChangeEvent e) {
 				doily.settings.setShowRings(chkShowRings.isSelected());
-				pnlDisplay.redraw();
+				pnlDisplay.repaint();
 			}
 		});
 
@@ -596,6 +695,36 @@ public class DigitalDoily extends JFrame {
 			}
 		});
 
+		// [Render Mode Combo Box]
+		// Update Render Mode settings value
+		cmbRenderMode.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+				doily.settings.setRenderMode(cmbRenderMode.getSelectedIndex());
+				// Sector count is lowered to the new maximum if above it
+				setSectorRange(DoilySettings.getMaxSectors(doily.settings.getRenderMode()));
+				pnlDisplay.redraw();
+			}
+		});
+
+		// [Tool Radio Buttons]
+		// Change the tool used in the display panel
+		for (int i=0; i < rdoTools.length; i++) {
+			int tool = i;
+			rdoTools[i].addActionListener(new ActionListener() {
+				public void actionPerformed(ActionEvent e) {
+					pnlDisplay.setTool(tool);
+				}
+			});
+		}
+
+		// [Delete Selected Button]
+		// Remove lines selected in the display panel
+		btnDeleteSelected.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+				pnlDisplay.deleteSelected();
+			}
+		});
+
 		// [Pen Scale Slider]
 		// Update Pen scale settings value
 		sldPenScale.addChangeListener(new ChangeListener() {
@@ -645,6 +774,28 @@ public class DigitalDoily extends JFrame {
 			}
 		});
 
+		// [Decimate Check Box]
+		// Update Decimation settings value
+		chkDecimate.addChangeListener(new ChangeListener() {
+			public void stateChanged(ChangeEvent e) {
+				// Keep any custom tolerance unless the setting has changed
+				if (chkDecimate.isSelected() != doily.settings.isDecimate()) {
+					doily.settings.setDecimate(chkDecimate.isSelected());
+				}
+			}
+		});
+
+		// [Fit Curves Check Box]
+		// Update Curve Fitting settings value
+		chkFitCurves.addChangeListener(new ChangeListener() {
+			public void stateChanged(ChangeEvent e) {
+				// Keep any custom tolerance unless the setting has changed
+				if (chkFitCurves.isSelected() != doily.settings.isFitCurves()) {
+					doily.settings.setFitCurves(chkFitCurves.isSelected());
+				}
+			}
+		});
+
 
 		// [Save Button]
 		// Save the display to the gallery
@@ -736,17 +887,33 @@ public class DigitalDoily extends JFrame {
 	 * Update values of GUI setting objects 
 	 */
 	private void update() {
+		setSectorRange(DoilySettings.getMaxSectors(doily.settings.getRenderMode()));
 		sldSectors.setValue(doily.settings.getSectors());
 		lblSectorCount.setText(String.valueOf(doily.settings.getSectors()));
 		chkShowSeparators.setSelected(doily.settings.isShowSeparators());
 		chkShowRings.setSelected(doily.settings.isShowRings());
 		chkUseImage.setSelected(doily.settings.isUseImage());
 		chkAntiAlias.setSelected(doily.settings.isAntiAlias());
+		cmbRenderMode.setSelectedIndex(doily.settings.getRenderMode());
 		sldPenScale.setValue(doily.settings.getPenScale());
 		lblPenScaleValue.setText(String.valueOf(doily.settings.getPenScale()));
 		chkReflect.setSelected(doily.settings.isReflect());
 		chkCircleBound.setSelected(doily.settings.isCircleBounded());
 		chkInterpolate.setSelected(doily.settings.isInterpolate());
+		chkDecimate.setSelected(doily.settings.isDecimate());
+		chkFitCurves.setSelected(doily.settings.isFitCurves());
+	}
+
+	/**
+	 * Set the maximum of the sector slider, lowering its value if above the maximum.
+	 * @param maxSectors The maximum number of sectors
+	 */
+	private void setSectorRange(int maxSectors) {
+		sldSectors.setMaximum(maxSectors);
+		sldSectors.setMajorTickSpacing(maxSectors-DoilySettings.MIN_SECTORS);
+		sldSectors.setMinorTickSpacing(maxSectors/10);
+		sldSectors.setLabelTable(sldSectors.createStandardLabels(maxSectors-DoilySettings.MIN_SECTORS, 
+				DoilySettings.MIN_SECTORS));
 	}
 
 	/**
@@ -1,12 +1,25 @@
+import java.awt.AlphaComposite;
 import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics2D;
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.RenderingHints;
+import java.awt.Shape;
 import java.awt.geom.AffineTransform;
+import java.awt.geom.Arc2D;
+import java.awt.geom.Area;
+import java.awt.geom.Ellipse2D;
 import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * DoilyDrawer class. Holds drawing methods for a doily state.
@@ -15,9 +28,35 @@ import java.awt.image.BufferedImage;
  * @author David Jones [dsj1n15]
  */
 public class DoilyDrawer {
+	// Render modes
+	public static final int RENDER_PATHS = 0;
+	public static final int RENDER_STAMPED = 1;
+	public static final int RENDER_RASTER = 2;
+	public static final int RENDER_POLAR = 3;
+	public static final String[] RENDER_MODE_NAMES = {"Paths", "Sector Stamp", "Raster", 
+			"Polar Remap"};
 	// Graphic display options
 	private static final int RING_COUNT = 10;
+	private static final Color HIGHLIGHT_COLOR = new Color(255, 255, 255, 128);
+	private static final int HIGHLIGHT_WIDTH = 3;        // Pixels shown either side of a highlighted line
+	private static final int DAMAGE_MAX_COPIES = 256;    // Copies bounded one at a time, more bound a circle
+	// Sector stamp options
+	private static final int STAMP_MIN_SECTORS = 3;      // Wedges wider than this are drawn as paths
+	private static final int STAMP_SEAM_PADDING = 2;     // Pixels of overlap kept around a wedge
+	// Parallel rendering defaults
+	private static final int DEFAULT_TILE_SIZE = 256;
+	// Export defaults
+	public static final int DEFAULT_EXPORT_BAND_HEIGHT = 256;
+
+	// Instance variables
 	private DoilyState doily;                          // Doily object to draw
+	private Line updateLine;                           // Last line drawn by an update or draw
+	private int updateCount;                           // Points of update line already drawn
+	private int updateReplaced;                        // Replaced count of update line when drawn
+	private int tileSize = DEFAULT_TILE_SIZE;          // Width & height of parallel render tiles
+	private int parallelism = ForkJoinPool.getCommonPoolParallelism(); // Threads used for tiles
+	private boolean draft;                             // Whether anti-aliasing is ignored
+	private int detailReduction;                       // Levels of detail dropped from lines
 
 	/**
 	 * Instantiates a new doily drawer with a given doily.
@@ -41,11 +80,38 @@ public class DoilyDrawer {
 	}
 
 	/**
-	 * Draws the current doily onto a given buffered image - scaled to image.
+	 * Run tasks on a fork join pool, waiting for them all to finish.
+	 * @param tasks Tasks to run
+	 */
+	private void invokeTasks(ArrayList<RecursiveAction> tasks) {
+		// Run in place on a single thread, otherwise use the common pool unless a different 
+		// parallelism has been requested
+		if (parallelism == 1) {
+			for (RecursiveAction task : tasks) {
+				task.invoke();
+			}
+		}
+		else if (parallelism == ForkJoinPool.getCommonPoolParallelism()) {
+			ForkJoinPool.commonPool().invoke(new TileAction(tasks));
+		}
+		else {
+			ForkJoinPool pool = new ForkJoinPool(parallelism);
+			try {
+				pool.invoke(new TileAction(tasks));
+			} finally {
+				pool.shutdown();
+			}
+		}
+	}
+
+	/**
+	 * Draws the current doily onto a given buffered image - scaled to image. Lines are drawn
+	 * in parallel tiles if the image is large enough.
 	 * @param image Image to draw to
 	 */
 	public void drawDoily(BufferedImage image) {
-		drawDoily((Graphics2D) image.getGraphics(), new Dimension(image.getWidth(), image.getHeight()));
+		drawDoily((Graphics2D) image.getGraphics(), new Dimension(image.getWidth(), image.getHeight()), 
+				true);
 	}
 
 	/**
@@ -54,16 +120,318 @@ public class DoilyDrawer {
 	 * @param d Dimension to scale doily to
 	 */
 	public void drawDoily(Graphics2D g, Dimension d) {
+		drawDoily(g, d, false);
+	}
+
+	/**
+	 * Draws the current doily onto a given graphics object - scaled to the given dimensions.
+	 * @param gr Graphics object to draw to
+	 * @param d Dimension to scale doily to
+	 * @param parallel Whether lines may be drawn in parallel tiles, only if drawing to an 
+	 * image in memory
+	 */
+	private void drawDoily(Graphics2D g, Dimension d, boolean parallel) {
 		// Set graphic settings
 		setGraphicSettings(g);
 		// Draw concentric circles (Bottom Layer)
-		drawRings(g, d);
+		if (doily.settings.isShowRings()) {
+			drawRings(g, d);
+		}
 		// Draw lines
-		for (Line line : doily.lines) {
-			drawLine(g, line, d);
-		}	
+		LineBatch batch = createBatch(g, d, parallel);
+		batch.drawLines(0, doily.lines.size());
+		batch.flush();
 		// Draw separators (Top Layer)
-		drawSeperators(g, d);
+		if (doily.settings.isShowSeparators()) {
+			drawSeparators(g, d);
+		}
+	}
+
+	/**
+	 * Draws all lines of the current doily using the render mode given by its settings.
+	 * @param g Graphics object to draw to
+	 * @param d Dimension to scale lines to
+	 */
+	public void drawLines(Graphics2D g, Dimension d) {
+		drawLines(g, d, 0, doily.lines.size());
+	}
+
+	/**
+	 * Draws a range of lines of the current doily, in order, using the render mode given by
+	 * its settings. Drawing the lines after a previous draw of an earlier range gives the 
+	 * same result as drawing both ranges at once.
+	 * @param g Graphics object to draw to
+	 * @param d Dimension to scale lines to
+	 * @param start Index of the first line to draw
+	 * @param end Index after the last line to draw
+	 */
+	public void drawLines(Graphics2D g, Dimension d, int start, int end) {
+		LineBatch batch = createBatch(g, d);
+		batch.drawLines(start, end);
+		batch.flush();
+	}
+
+	/**
+	 * Create a batch to draw ranges of lines of the current doily with, in order, using the 
+	 * render mode given by its settings. Render modes that draw into an offscreen image 
+	 * first only draw it when the batch is flushed, so lines drawn in several ranges cost 
+	 * the same as drawing them at once.
+	 * @param g Graphics object to draw to
+	 * @param d Dimension to scale lines to
+	 * @return The batch
+	 */
+	public LineBatch createBatch(Graphics2D g, Dimension d) {
+		return createBatch(g, d, false);
+	}
+
+	/**
+	 * Create a batch to draw ranges of lines of the current doily with, as createBatch. 
+	 * Lines drawn straight onto the graphics object can be split into tiles, each drawn 
+	 * with its own clipped graphics object on a fork join pool. Every tile draws its lines 
+	 * in order, so the result matches drawing without tiles.
+	 * @param g Graphics object to draw to
+	 * @param d Dimension to scale lines to
+	 * @param parallel Whether lines may be drawn in parallel tiles, only if the graphics 
+	 * object draws to an image in memory
+	 * @return The batch
+	 */
+	public LineBatch createBatch(Graphics2D g, Dimension d, boolean parallel) {
+		return new LineBatch(g, d, parallel);
+	}
+
+	/**
+	 * Draws lines of the current doily directly, as paths or rasterized as given by its 
+	 * settings. Polar remapping is only drawn through a batch.
+	 * @param g Graphics object to draw to
+	 * @param d Dimension to scale lines to
+	 * @param start Index of the first line to draw
+	 * @param end Index after the last line to draw
+	 */
+	private void drawLinesDirect(Graphics2D g, Dimension d, int start, int end) {
+		if (doily.settings.getRenderMode() == RENDER_RASTER && !isAntiAliased()) {
+			drawLinesRaster(g, d, start, end);
+		}
+		else {
+			// Skip lines that cannot reach the clip (Only the damaged area is painted)
+			Rectangle clip = g.getClipBounds();
+			for (int i=start; i < end; i++) {
+				Line line = doily.lines.get(i);
+				if (clip == null || isInRing(line, clip, d)) {
+					drawLine(g, line, d);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Draws the lines of the current doily that can be drawn within a region, in order, as
+	 * paths. Used to repair an area of a previous draw, the graphics object should be clipped
+	 * to the region's shape.
+	 * @param g Graphics object to draw to
+	 * @param d Dimension to scale lines to
+	 * @param region Region to draw within, padded as by getDamageRegion
+	 */
+	public void drawLines(Graphics2D g, Dimension d, PolarRegion region) {
+		ArrayList<PolarRegion> regions = new ArrayList<PolarRegion>();
+		regions.add(region);
+		drawLines(g, d, regions);
+	}
+
+	/**
+	 * Draws the lines of the current doily that can be drawn within any of a set of regions,
+	 * in order, as paths (or through a polar texture if that is the render mode, so repairs
+	 * match the rest of the drawing). The graphics object should be clipped to the regions'
+	 * shapes.
+	 * @param g Graphics object to draw to
+	 * @param d Dimension to scale lines to
+	 * @param regions Regions to draw within, padded as by getDamageRegion
+	 */
+	public void drawLines(Graphics2D g, Dimension d, ArrayList<PolarRegion> regions) {
+		setGraphicSettings(g);
+		int lineCount = doily.lines.size();
+		if (lineCount > 0) {
+			markUpdated(doily.lines.get(lineCount-1));
+		}
+		LineBatch batch = null;
+		if (doily.settings.getRenderMode() == RENDER_POLAR) {
+			batch = createBatch(g, d);
+		}
+		for (Line line : doily.lines) {
+			if (intersects(line, regions, d)) {
+				if (batch != null) {
+					batch.drawPolarLine(line);
+				}
+				else {
+					drawLine(g, line, d);
+				}
+			}
+		}
+		if (batch != null) {
+			batch.flush();
+		}
+	}
+
+	/**
+	 * Gets whether a line can be drawn within any of a set of regions.
+	 * @param line Line to check
+	 * @param regions Regions to check, padded as by getDamageRegion
+	 * @param d Dimension the line is drawn at
+	 * @return true, if the line's region intersects any of the regions
+	 */
+	public boolean intersects(Line line, ArrayList<PolarRegion> regions, Dimension d) {
+		PolarRegion lineRegion = getDamageRegion(line, d);
+		if (lineRegion == null) {
+			return false;
+		}
+		for (PolarRegion region : regions) {
+			if (lineRegion.intersects(region)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Gets the polar region a line is drawn within, padded by the pen size.
+	 * @param line Line to find the region of
+	 * @param d Dimension the line is drawn at
+	 * @return The padded region, null if the line has no points
+	 */
+	public PolarRegion getDamageRegion(Line line, Dimension d) {
+		PolarRegion region = line.getPolarRegion(doily.settings.getSectors());
+		if (region == null) {
+			return null;
+		}
+		// Pad by pen and a pixel either side for rounding
+		double pad = DoilyUtilities.getPenSize(line.getScaleFactor(), d)/2.0 + 2;
+		return region.pad(pad, DoilyUtilities.getRadius(d), doily.settings.getSectors());
+	}
+
+	/**
+	 * Create a shape covering every sector copy of a region.
+	 * @param region Region to cover
+	 * @param d Dimension the region is drawn at
+	 * @return The region's shape
+	 */
+	public Shape createDamageShape(PolarRegion region, Dimension d) {
+		return region.toShape(DoilyUtilities.getCentre(d), DoilyUtilities.getRadius(d), 
+				doily.settings.getSectors());
+	}
+
+	/**
+	 * Create a single shape covering every sector copy of a set of regions.
+	 * @param regions Regions to cover
+	 * @param d Dimension the regions are drawn at
+	 * @return The union of the regions' shapes
+	 */
+	public Shape createDamageShape(ArrayList<PolarRegion> regions, Dimension d) {
+		Area shape = new Area();
+		for (PolarRegion region : regions) {
+			shape.add(new Area(createDamageShape(region, d)));
+		}
+		return shape;
+	}
+
+	/**
+	 * Streams the current doily as a PNG of a given size, rendering a horizontal band at a 
+	 * time so peak memory depends on the band height rather than the image area. Lines are
+	 * drawn as paths as stamping would allocate a wedge tile scaled to the full image. Doilies 
+	 * with more sectors than paths allow are remapped from a polar texture of each band, 
+	 * filtered if anti-aliased, so edges may differ from paths by a pixel.
+	 * @param out Stream to write the PNG to
+	 * @param size Size of image to create
+	 * @param bandHeight Number of rows rendered at once
+	 * @throws IOException Signals that an I/O exception has occurred
+	 */
+	public void writeDoilyPNG(OutputStream out, Dimension size, int bandHeight) throws IOException {
+		writeDoilyPNG(out, size, bandHeight, null);
+	}
+
+	/**
+	 * Streams the current doily as a PNG of a given size, reporting progress after each band.
+	 * Rendering stops with an InterruptedIOException if the current thread is interrupted.
+	 * @param out Stream to write the PNG to
+	 * @param size Size of image to create
+	 * @param bandHeight Number of rows rendered at once
+	 * @param listener Listener to notify of progress (null is valid)
+	 * @throws IOException Signals that an I/O exception has occurred
+	 */
+	public void writeDoilyPNG(OutputStream out, Dimension size, int bandHeight, 
+			ProgressListener listener) throws IOException {
+		// Draw with a copy of the settings that renders lines as paths, unless there are more 
+		// sectors than paths are allowed, which only polar remapping draws in reasonable time
+		DoilySettings settings = doily.settings.clone();
+		settings.setRenderMode((settings.getSectors() > DoilySettings.MAX_SECTORS) 
+				? RENDER_POLAR : RENDER_PATHS);
+		DoilyDrawer drawer = new DoilyDrawer(new DoilyState(settings, doily.lines));
+		drawer.tileSize = tileSize;
+		drawer.parallelism = parallelism;
+
+		// Render every band into the same image, offset so the band is drawn at its origin
+		BandedPNGWriter writer = new BandedPNGWriter(out, size.width, size.height);
+		// Interrupted or failed exports must still release the writer's compressor
+		try {
+			BufferedImage band = new BufferedImage(size.width, Math.min(bandHeight, size.height), 
+					BufferedImage.TYPE_3BYTE_BGR);
+			for (int y=0; y < size.height; y += band.getHeight()) {
+				if (Thread.currentThread().isInterrupted()) {
+					throw new InterruptedIOException("PNG export interrupted");
+				}
+				int rows = Math.min(band.getHeight(), size.height-y);
+				Graphics2D g = band.createGraphics();
+				g.setColor(Color.BLACK);
+				g.fillRect(0, 0, band.getWidth(), band.getHeight());
+				g.translate(0, -y);
+				g.clip(new Rectangle(0, y, size.width, rows));
+				drawer.drawDoily(g, size, true);
+				g.dispose();
+				writer.writeRows(band, rows);
+				if (listener != null) {
+					listener.progressMade((double) (y+rows)/size.height);
+				}
+			}
+			writer.finish();
+		} finally {
+			writer.end();
+		}
+	}
+
+	/**
+	 * Gets the width and height of tiles used for parallel rendering.
+	 * @return The tile size
+	 */
+	public int getTileSize() {
+		return tileSize;
+	}
+
+	/**
+	 * Sets the width and height of tiles used for parallel rendering.
+	 * @param tileSize The new tile size
+	 */
+	public void setTileSize(int tileSize) {
+		if (tileSize <= 0) {
+			throw new IllegalArgumentException("Tile size must be positive");
+		}
+		this.tileSize = tileSize;
+	}
+
+	/**
+	 * Gets the number of threads used for parallel rendering.
+	 * @return The parallelism
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Sets the number of threads used for parallel rendering, 1 disables parallel rendering.
+	 * @param parallelism The new parallelism
+	 */
+	public void setParallelism(int parallelism) {
+		if (parallelism <= 0) {
+			throw new IllegalArgumentException("Parallelism must be positive");
+		}
+		this.parallelism = parallelism;
 	}
 
 	/**
@@ -76,20 +444,220 @@ public class DoilyDrawer {
 
 	/**
 	 * Draws changes to the current doily onto a given graphics object - scaled to the given dimensions.
-	 * Changes are defined as the last line added to lines.
+	 * Changes are defined as the points of the last line added to lines that have not yet 
+	 * been drawn by an update. Separators are only redrawn where the new points were drawn.
 	 * @param gr Graphics object to draw to
 	 * @param d Dimension to scale doily changes to
 	 */
 	public void updateDoily(Graphics2D g, Dimension d) {
+		// Draw new points of last line
+		int lineCount = doily.lines.size();
+		int start = updateLines(g, d);
+		// Redraw separators (Top Layer) over new points only
+		if (start >= 0 && doily.settings.isShowSeparators()) {
+			Graphics2D sg = (Graphics2D) g.create();
+			sg.clip(createDamageShape(getSegmentDamage(doily.lines.get(lineCount-1), start, d)));
+			drawSeparators(sg, d);
+			sg.dispose();
+		}
+	}
+
+	/**
+	 * Draws the points of the last line added to lines that have not yet been drawn onto a 
+	 * given graphics object - scaled to the given dimensions. New points are drawn as a 
+	 * segment joined to the last point already drawn. Nothing else is redrawn.
+	 * Points may be added by a capture thread while drawing, any added after the points to 
+	 * draw are found are left for the next update.
+	 * @param g Graphics object to draw to
+	 * @param d Dimension to scale line to
+	 * @return Index of the first point drawn, -1 if nothing was drawn
+	 */
+	public int updateLines(Graphics2D g, Dimension d) {
 		// Set graphic settings
 		setGraphicSettings(g);	
-		// Draw last line
 		int lineCount = doily.lines.size();
-		if (lineCount > 0) {
-			drawLine(g, doily.lines.get(lineCount-1), d);			
+		if (lineCount == 0) {
+			return -1;
+		}
+		// Find points not yet drawn, a different line has not been drawn at all
+		Line line = doily.lines.get(lineCount-1);
+		int start = 0;
+		Path2D path;
+		synchronized (line) {
+			if (line == updateLine && updateCount > 0) {
+				// Decimation or curve fitting may have replaced the last segment drawn, redraw it
+				boolean replaced = line.getReplacedCount() != updateReplaced;
+				if (!replaced && updateCount >= line.getPointCount()) {
+					return -1;
+				}
+				start = Math.max(updateCount - 1 - (replaced ? line.getPointsPerSegment() : 0), 0);
+			}
+			// New segment starts at the last point drawn so it joins the existing line
+			int sectors = doily.settings.getSectors();
+			path = (start == 0) ? line.getUnitPath(sectors) : line.getUnitPath(sectors, start);
+			markUpdated(line);
+		}
+		drawLine(g, line, path, d);
+		return start;
+	}
+
+	/**
+	 * Draws a line added on top of those already drawn, such as one restored by a redo, 
+	 * clipped to the area it covers. The line is recorded as drawn so that updates only 
+	 * draw points added to it afterwards.
+	 * @param g Graphics object to draw to
+	 * @param line Line to draw, the last of the current doily's lines
+	 * @param d Dimension to scale line to
+	 */
+	public void drawAddedLine(Graphics2D g, Line line, Dimension d) {
+		PolarRegion region = getDamageRegion(line, d);
+		if (region != null) {
+			Graphics2D lg = (Graphics2D) g.create();
+			setGraphicSettings(lg);
+			lg.clip(createDamageShape(region, d));
+			drawLine(lg, line, d);
+			lg.dispose();
+		}
+		markUpdated(line);
+	}
+
+	/**
+	 * Record that all current points of a line have been drawn.
+	 * @param line Line that has been drawn
+	 */
+	private void markUpdated(Line line) {
+		synchronized (line) {
+			updateLine = line;
+			updateCount = line.getPointCount();
+			updateReplaced = line.getReplacedCount();
+		}
+	}
+
+	/**
+	 * Gets the screen areas covered by the points of a line from a given index, across every
+	 * sector and reflection. Areas include the pen size. If there are too many copies to
+	 * bound separately, a single area bounds the circle they all lie within.
+	 * @param line Line to find the areas of
+	 * @param start Index of the first point to include
+	 * @param d Dimension the line is drawn at
+	 * @return Bounds of every drawn copy of the points (empty if there are no points)
+	 */
+	public ArrayList<Rectangle> getSegmentDamage(Line line, int start, Dimension d) {
+		ArrayList<Rectangle> damage = new ArrayList<Rectangle>();
+		// Determine formatting constraints
+		Point centre = DoilyUtilities.getCentre(d);
+		int radius = DoilyUtilities.getRadius(d);
+		int sectors = doily.settings.getSectors();
+		double sectorAngle = DoilyUtilities.getSectorAngle(sectors);
+		Rectangle2D unitBounds = line.getUnitBounds(sectors, start);
+		if (unitBounds == null) {
+			return damage;
+		}
+		// Pad by pen and a pixel either side for rounding
+		double pad = DoilyUtilities.getPenSize(line.getScaleFactor(), d)/2.0 + 2;
+
+		// Copies of many sectors blur together, bound the circle through the furthest corner
+		if (sectors*(line.isReflect() ? 2 : 1) > DAMAGE_MAX_COPIES) {
+			double outer = Math.max(Math.hypot(unitBounds.getMinX(), unitBounds.getMinY()), 
+					Math.hypot(unitBounds.getMaxX(), unitBounds.getMaxY()));
+			outer = Math.max(outer, Math.max(Math.hypot(unitBounds.getMinX(), unitBounds.getMaxY()), 
+					Math.hypot(unitBounds.getMaxX(), unitBounds.getMinY())));
+			double extent = outer*radius + pad;
+			damage.add(new Rectangle2D.Double(centre.x - extent, centre.y - extent, 
+					extent*2, extent*2).getBounds());
+			return damage;
+		}
+
+		// Transform bounds to every sector (and reflection)
+		for (int i=0; i < sectors; i++) {
+			for (int r=0; r < (line.isReflect() ? 2 : 1); r++) {
+				AffineTransform transform = AffineTransform.getTranslateInstance(centre.x, centre.y);
+				transform.rotate(sectorAngle*i);
+				transform.scale((r == 0) ? radius : -radius, radius);
+				Rectangle2D bounds = transform.createTransformedShape(unitBounds).getBounds2D();
+				bounds.setRect(bounds.getX() - pad, bounds.getY() - pad, 
+						bounds.getWidth() + pad*2, bounds.getHeight() + pad*2);
+				damage.add(bounds.getBounds());
+			}
+		}
+		return damage;
+	}
+
+	/**
+	 * Create a single shape covering all damaged areas.
+	 * @param damage Damaged areas
+	 * @return The union of all areas
+	 */
+	public Shape createDamageShape(ArrayList<Rectangle> damage) {
+		// All rectangles share a winding direction so non-zero filling gives their union
+		Path2D shape = new Path2D.Float(Path2D.WIND_NON_ZERO);
+		for (Rectangle rect : damage) {
+			shape.append(rect, false);
+		}
+		return shape;
+	}
+
+	/**
+	 * Gets the radius lines are simplified for when drawn at a given radius. Each level of 
+	 * detail dropped halves the radius, doubling the error allowed in simplified paths.
+	 * @param radius The absolute radius lines are drawn at
+	 * @return The radius to simplify lines for
+	 */
+	private int getDetailRadius(int radius) {
+		return Math.max(radius >> detailReduction, 1);
+	}
+
+	/**
+	 * Gets the number of levels of detail dropped when simplifying lines.
+	 * @return The detail reduction, 0 if lines are as detailed as the display can show
+	 */
+	public int getDetailReduction() {
+		return detailReduction;
+	}
+
+	/**
+	 * Sets the number of levels of detail dropped when simplifying lines, so complex doilies
+	 * can be drawn quickly at a lower quality.
+	 * @param detailReduction The new detail reduction, 0 for full detail
+	 */
+	public void setDetailReduction(int detailReduction) {
+		if (detailReduction < 0) {
+			throw new IllegalArgumentException("Detail reduction must not be negative");
 		}
-		// Redraw separators (Top Layer)
-		drawSeperators(g, d);
+		this.detailReduction = detailReduction;
+	}
+
+	/**
+	 * Gets the doily being drawn.
+	 * @return The doily
+	 */
+	public DoilyState getDoily() {
+		return doily;
+	}
+
+	/**
+	 * Gets whether anti-aliasing is ignored.
+	 * @return true, if drawing in draft quality
+	 */
+	public boolean isDraft() {
+		return draft;
+	}
+
+	/**
+	 * Sets whether anti-aliasing is ignored, so lines can be drawn quickly while they are 
+	 * being drawn and redrawn with anti-aliasing once complete.
+	 * @param draft Whether to draw in draft quality
+	 */
+	public void setDraft(boolean draft) {
+		this.draft = draft;
+	}
+
+	/**
+	 * Gets whether drawing is anti-aliased, as chosen by the settings unless in draft.
+	 * @return true, if anti-aliased
+	 */
+	private boolean isAntiAliased() {
+		return doily.settings.isAntiAlias() && !draft;
 	}
 
 	/**
@@ -97,7 +665,7 @@ public class DoilyDrawer {
 	 * @param g Graphics object to draw to
 	 */
 	private void setGraphicSettings(Graphics2D g) {
-		if (doily.settings.isAntiAlias()) {
+		if (isAntiAliased()) {
 			// Set graphic object rendering hints
 			g.setRenderingHints(new RenderingHints(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON));
 		}
@@ -105,21 +673,22 @@ public class DoilyDrawer {
 
 	/**
 	 * Draw concentric rings to a given graphics object scaled to a given dimension.
+	 * Rings are drawn regardless of whether they are enabled in the settings.
 	 * @param g Graphics object to draw to
 	 * @param d Dimension to scale rings to
 	 */
-	private void drawRings(Graphics2D g, Dimension d) {
-		if (doily.settings.isShowRings()) {
-			// Determine formatting constraints
-			int max = DoilyUtilities.getMaxSquareDisplay(d);
-			// Reset stroke and set colour
-			g.setColor(Color.DARK_GRAY);
-			g.setStroke(new BasicStroke());
-			// Draw concentric rings
-			for (int i=1; i <= RING_COUNT; i++) {
-				int size = i*max/RING_COUNT;
-				g.drawOval((d.width - i*max/RING_COUNT)/2, (d.height - i*max/RING_COUNT)/2, size, size);
-			}
+	public void drawRings(Graphics2D g, Dimension d) {
+		// Set graphic settings
+		setGraphicSettings(g);
+		// Determine formatting constraints
+		int max = DoilyUtilities.getMaxSquareDisplay(d);
+		// Reset stroke and set colour
+		g.setColor(Color.DARK_GRAY);
+		g.setStroke(new BasicStroke());
+		// Draw concentric rings
+		for (int i=1; i <= RING_COUNT; i++) {
+			int size = i*max/RING_COUNT;
+			g.drawOval((d.width - i*max/RING_COUNT)/2, (d.height - i*max/RING_COUNT)/2, size, size);
 		}
 	}
 
@@ -130,6 +699,131 @@ public class DoilyDrawer {
 	 * @param d Dimension to scale line to
 	 */
 	private void drawLine(Graphics2D g, Line line, Dimension d) {
+		// Points closer together than the display can show are skipped
+		drawLine(g, line, line.getDetailPath(doily.settings.getSectors(), 
+				getDetailRadius(DoilyUtilities.getRadius(d))), d);
+	}
+
+	/**
+	 * Draw a path of a line to a given graphics object scaled to a given dimension.
+	 * @param g Graphics object to draw to
+	 * @param line Line object to take pen settings from
+	 * @param path Path of the line positioned on a unit circle
+	 * @param d Dimension to scale line to
+	 */
+	private void drawLine(Graphics2D g, Line line, Path2D path, Dimension d) {
+		int radius = DoilyUtilities.getRadius(d);
+		if (radius <= 0) {
+			return;
+		}
+		// Set pen using line settings, scaled down to match unit geometry
+		setPen(g, line, d, radius);
+		drawCopies(g, path, line.isReflect(), d);
+		// Reset stroke
+		g.setStroke(new BasicStroke());
+	}
+
+	/**
+	 * Draws a range of lines by rasterizing them into a transparent tile covering the 
+	 * graphics object's clip, which is then drawn in one go.
+	 * @param g Graphics object to draw to
+	 * @param d Dimension to scale lines to
+	 * @param start Index of the first line to draw
+	 * @param end Index after the last line to draw
+	 */
+	private void drawLinesRaster(Graphics2D g, Dimension d, int start, int end) {
+		Rectangle bounds = new Rectangle(d);
+		Rectangle clip = g.getClipBounds();
+		if (clip != null) {
+			bounds = bounds.intersection(clip);
+		}
+		if (bounds.isEmpty()) {
+			return;
+		}
+		BufferedImage tile = new BufferedImage(bounds.width, bounds.height, 
+				BufferedImage.TYPE_INT_ARGB);
+		if (rasterizeLines(tile, bounds.getLocation(), d, start, end)) {
+			g.drawImage(tile, bounds.x, bounds.y, null);
+		}
+	}
+
+	/**
+	 * Draws a range of lines straight into the pixels of an integer image, in order, without 
+	 * anti-aliasing. The image may cover only part of the doily. Lines that cannot be 
+	 * rasterized are stroked onto the image instead.
+	 * @param image Image of type TYPE_INT_RGB or TYPE_INT_ARGB to draw into
+	 * @param origin Position of the image's top left corner within the doily
+	 * @param d Dimension to scale lines to
+	 * @param start Index of the first line to draw
+	 * @param end Index after the last line to draw
+	 * @return true, if any line was drawn
+	 */
+	public boolean rasterizeLines(BufferedImage image, Point origin, Dimension d, int start, 
+			int end) {
+		LineRasterizer rasterizer = new LineRasterizer(image, origin.x, origin.y);
+		Rectangle bounds = new Rectangle(origin.x, origin.y, image.getWidth(), image.getHeight());
+		Point centre = DoilyUtilities.getCentre(d);
+		int radius = DoilyUtilities.getRadius(d);
+		int sectors = doily.settings.getSectors();
+		if (radius <= 0) {
+			return false;
+		}
+		Graphics2D sg = null;
+		boolean drawn = false;
+		for (int i=start; i < end; i++) {
+			Line line = doily.lines.get(i);
+			if (!isInRing(line, bounds, d)) {
+				continue;
+			}
+			int penSize = DoilyUtilities.getPenSize(line.getScaleFactor(), d);
+			if (LineRasterizer.canDraw(line, penSize)) {
+				rasterizer.drawCopies(line.getDetailPath(sectors, getDetailRadius(radius)), 
+						line.isReflect(), centre, radius, sectors, penSize, line.getColor().getRGB());
+			}
+			else {
+				if (sg == null) {
+					sg = image.createGraphics();
+					sg.translate(-origin.x, -origin.y);
+				}
+				drawLine(sg, line, d);
+			}
+			drawn = true;
+		}
+		if (sg != null) {
+			sg.dispose();
+		}
+		return drawn;
+	}
+
+	/**
+	 * Draw a highlight around every copy of a line to a given graphics object scaled to a
+	 * given dimension. Used to show selected lines.
+	 * @param g Graphics object to draw to
+	 * @param line Line object to highlight
+	 * @param d Dimension to scale line to
+	 */
+	public void drawHighlight(Graphics2D g, Dimension d, Line line) {
+		int radius = DoilyUtilities.getRadius(d);
+		if (radius <= 0) {
+			return;
+		}
+		setGraphicSettings(g);
+		// Pen is widened so the highlight shows around the line
+		int size = DoilyUtilities.getPenSize(line.getScaleFactor(), d) + HIGHLIGHT_WIDTH*2;
+		g.setColor(HIGHLIGHT_COLOR);
+		g.setStroke(new BasicStroke((float) size/radius, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+		drawCopies(g, line.getDetailPath(doily.settings.getSectors(), radius), line.isReflect(), d);
+		g.setStroke(new BasicStroke());
+	}
+
+	/**
+	 * Draw a unit path in every sector (and reflection) using the current pen.
+	 * @param g Graphics object to draw to, with a pen scaled to match unit geometry
+	 * @param path Path positioned on a unit circle
+	 * @param reflect Whether to also draw the path mirrored in every sector
+	 * @param d Dimension to scale path to
+	 */
+	private void drawCopies(Graphics2D g, Path2D path, boolean reflect, Dimension d) {
 		// Determine formatting constraints
 		Point centre = DoilyUtilities.getCentre(d);
 		int radius = DoilyUtilities.getRadius(d);		
@@ -137,56 +831,127 @@ public class DoilyDrawer {
 		double sectorAngle = DoilyUtilities.getSectorAngle(sectors);
 		AffineTransform preRotate = g.getTransform();
 
-		// Set pen using line settings
-		int size = DoilyUtilities.getPenSize(line.getScaleFactor(), d);
-		g.setColor(line.getColor());
-		g.setStroke(new BasicStroke(size, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));	
-
-		// Create paths for points positioned normally and reflected
-		// Reflected path may not be required but performance impact is minimal
-		Path2D pathNormal = new Path2D.Float();
-		Path2D pathReflected = new Path2D.Float();
-		boolean isFirst = true;
-		for (LinePoint point : line.points) {
-			// Get positional coordinates of point
-			Point posAbsolute = point.getAbsolutePosition(radius, sectorAngle);
-			Point posNormal = new Point(centre.x+posAbsolute.x, centre.y+posAbsolute.y);
-			Point posReflected = new Point(centre.x-posAbsolute.x, centre.y+posAbsolute.y);
-			// Create paths
-			if (isFirst) {
-				pathNormal.moveTo(posNormal.x, posNormal.y);
-				pathReflected.moveTo(posReflected.x, posReflected.y);
-				isFirst = false;
-			} else {
-				pathNormal.lineTo(posNormal.x, posNormal.y);
-				pathReflected.lineTo(posReflected.x, posReflected.y);
-			} 
-		}
-
 		// Draw points for all sectors
+		g.translate(centre.x, centre.y);
 		for (int i=0; i < sectors; i++) {
-			// Draw paths
-			g.draw(pathNormal);
-			if (line.isReflect()) {
-				g.draw(pathReflected);
+			// Draw paths, reflected path mirrors across the vertical
+			drawUnitPath(g, path, radius, false);
+			if (reflect) {
+				drawUnitPath(g, path, radius, true);
 			}	
 			// Rotate for next sector
-			g.rotate(sectorAngle, centre.x, centre.y);
+			g.rotate(sectorAngle);
 		}
 		// Reset rotation (in case of any offset from double accuracy)
 		g.setTransform(preRotate);
-		// Reset stroke
-		g.setStroke(new BasicStroke());
+	}
+
+	/**
+	 * Draw a unit path scaled to a given radius around the current origin.
+	 * @param g Graphics object to draw to, with a pen scaled to match unit geometry
+	 * @param path Path on a unit circle
+	 * @param radius The absolute radius
+	 * @param reflected Whether to mirror the path across the vertical
+	 */
+	private void drawUnitPath(Graphics2D g, Path2D path, int radius, boolean reflected) {
+		AffineTransform preScale = g.getTransform();
+		g.scale(reflected ? -radius : radius, radius);
+		g.draw(path);
+		g.setTransform(preScale);
+	}
+
+	/**
+	 * Set the colour and stroke of a graphics object to match a line's pen.
+	 * @param g Graphics object to draw to
+	 * @param line Line to take pen settings from
+	 * @param d Dimension to scale pen to
+	 * @param scale Amount the pen will be scaled by when drawing
+	 */
+	private void setPen(Graphics2D g, Line line, Dimension d, double scale) {
+		int size = DoilyUtilities.getPenSize(line.getScaleFactor(), d);
+		g.setColor(line.getColor());
+		g.setStroke(new BasicStroke((float) (size/scale), BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));	
+	}
+
+	/**
+	 * Checks whether any copy of a line could be drawn within an area. Lines can be drawn 
+	 * anywhere within the ring between their closest and furthest points from the centre.
+	 * @param line Line object to check
+	 * @param area Area to check
+	 * @param d Dimension line is scaled to
+	 * @return true, if the line's ring intersects the area
+	 */
+	private boolean isInRing(Line line, Rectangle area, Dimension d) {
+		PolarRegion region = line.getPolarRegion(doily.settings.getSectors());
+		if (region == null) {
+			return false;
+		}
+		Point centre = DoilyUtilities.getCentre(d);
+		int radius = DoilyUtilities.getRadius(d);
+		double pad = DoilyUtilities.getPenSize(line.getScaleFactor(), d)/2.0 + 2;
+		// Closest and furthest distance of the area from the centre
+		double dx = Math.max(Math.max(area.x - centre.x, centre.x - area.getMaxX()), 0);
+		double dy = Math.max(Math.max(area.y - centre.y, centre.y - area.getMaxY()), 0);
+		double near = Math.hypot(dx, dy);
+		double far = Math.hypot(Math.max(Math.abs(area.x - centre.x), Math.abs(area.getMaxX() - centre.x)),
+				Math.max(Math.abs(area.y - centre.y), Math.abs(area.getMaxY() - centre.y)));
+		return region.getMinOrbit()*radius - pad <= far && region.getMaxOrbit()*radius + pad >= near;
+	}
+
+	/**
+	 * Draw the sector rotations of a path whose clockwise span may reach the first sector.
+	 * @param g Graphics object of the tile
+	 * @param path Unit path to draw
+	 * @param reflected Whether to mirror the path across the vertical
+	 * @param lower Lowest clockwise scale of the path including padding
+	 * @param upper Highest clockwise scale of the path including padding
+	 * @param radius The absolute radius
+	 * @param sectors Number of sectors
+	 * @param tileOrigin Untransformed tile transform
+	 */
+	private void drawStampRotations(Graphics2D g, Path2D path, boolean reflected, double lower, 
+			double upper, int radius, int sectors, AffineTransform tileOrigin) {
+		double sectorAngle = DoilyUtilities.getSectorAngle(sectors);
+		// Rotation by k sectors moves the span to [lower+k, upper+k] which must meet [0, 1]
+		int first = (int) Math.ceil(-upper);
+		int last = (int) Math.floor(1 - lower);
+		if (last - first + 1 >= sectors) {
+			first = 0;
+			last = sectors - 1;
+		}
+		for (int k=first; k <= last; k++) {
+			g.setTransform(tileOrigin);
+			g.rotate(sectorAngle*k);
+			drawUnitPath(g, path, radius, reflected);
+		}
+		g.setTransform(tileOrigin);
+	}
+
+	/**
+	 * Create a wedge shape centred around [0,0] covering the first sector.
+	 * @param radius Radius of the wedge
+	 * @param sectorAngle The absolute sector angle in radians
+	 * @param padding Angle in degrees to extend the wedge by on each side
+	 * @return The wedge shape
+	 */
+	private Shape createWedge(double radius, double sectorAngle, double padding) {
+		// Arc angles are anti-clockwise from 3 o'clock, sectors are clockwise from 12 o'clock
+		double extent = Math.toDegrees(sectorAngle) + padding*2;
+		return new Arc2D.Double(-radius, -radius, radius*2, radius*2, 
+				90 + padding, -extent, Arc2D.PIE);
 	}
 
 	/**
 	 * Draw sector separators to a given graphics object scaled to a given dimension.
+	 * Separators are drawn regardless of whether they are enabled in the settings.
 	 * @param g Graphics object to draw to
 	 * @param d Dimension to scale separators to
 	 */
-	private void drawSeperators(Graphics2D g, Dimension d) {
+	public void drawSeparators(Graphics2D g, Dimension d) {
 		int sectors = doily.settings.getSectors();
-		if (doily.settings.isShowSeparators() && sectors != 1) {
+		if (sectors != 1) {
+			// Set graphic settings
+			setGraphicSettings(g);
 			// Determine formatting constraints
 			Point centre = DoilyUtilities.getCentre(d);
 			int radius = DoilyUtilities.getRadius(d);
@@ -204,4 +969,301 @@ public class DoilyDrawer {
 		}
 	}
 
+	/**
+	 * Batch of lines drawn in order onto a graphics object over any number of calls. In
+	 * sector stamp mode lines are rasterized into a tile of the first sector, which is only
+	 * stamped for every sector when the batch is flushed, so replaying lines a few at a time
+	 * does not stamp for every few lines. Polar remap mode likewise draws lines into a single
+	 * polar texture, only remapped when flushed. Other modes draw lines as they are given.
+	 * Inner class for DoilyDrawer.
+	 */
+	public class LineBatch {
+		// Instance variables
+		private Graphics2D g;                  // Graphics object to draw to
+		private Dimension d;                   // Dimension to scale lines to
+		private boolean parallel;              // Whether lines may be drawn in parallel tiles
+		private boolean pending;               // Whether lines are waiting to be flushed
+		// Sector stamp variables (tile is null unless stamping)
+		private BufferedImage tile;            // Tile covering the first sector
+		private Graphics2D tg;                 // Graphics object of tile (null until lines are drawn)
+		private Rectangle tileBounds;          // Position of tile around the centre
+		private Shape tileClip;                // Wedge of the first sector padded so seams overlap
+		private Shape wedge;                   // Exact wedge of the first sector
+		private AffineTransform tileOrigin;    // Untransformed tile transform
+		private double seamScale;              // Seam padding as a fraction of a sector
+		// Polar remap variables (polar is null unless remapping)
+		private PolarRenderer polar;           // Texture lines are drawn into
+		private Rectangle polarBounds;         // Area of the output remapped, within the clip
+
+		/**
+		 * Instantiates a new line batch.
+		 * @param g Graphics object to draw to
+		 * @param d Dimension to scale lines to
+		 * @param parallel Whether lines may be drawn in parallel tiles
+		 */
+		private LineBatch(Graphics2D g, Dimension d, boolean parallel) {
+			this.g = g;
+			this.d = d;
+			this.parallel = parallel;
+			setGraphicSettings(g);
+			if (doily.settings.getRenderMode() == RENDER_STAMPED &&
+					doily.settings.getSectors() >= STAMP_MIN_SECTORS &&
+					DoilyUtilities.getRadius(d) > 0) {
+				createTile();
+			}
+			else if (doily.settings.getRenderMode() == RENDER_POLAR) {
+				createPolar();
+			}
+		}
+
+		/**
+		 * Create the polar texture lines are drawn into, covering the graphics object's clip.
+		 * Nothing is drawn if the clip misses the output.
+		 */
+		private void createPolar() {
+			Rectangle bounds = new Rectangle(d);
+			Rectangle clip = g.getClipBounds();
+			if (clip != null) {
+				bounds = bounds.intersection(clip);
+			}
+			if (!bounds.isEmpty() && DoilyUtilities.getRadius(d) > 0) {
+				polarBounds = bounds;
+				polar = new PolarRenderer(d, doily.settings.getSectors(), bounds);
+			}
+		}
+
+		/**
+		 * Create the tile lines are stamped from. It is sized to the furthest point of any
+		 * line of the doily so every range drawn by the batch fits.
+		 */
+		private void createTile() {
+			int radius = DoilyUtilities.getRadius(d);
+			int sectors = doily.settings.getSectors();
+			double sectorAngle = DoilyUtilities.getSectorAngle(sectors);
+			double wedgeRadius = radius;
+			for (Line line : doily.lines) {
+				PolarRegion bounds = line.getPolarRegion(sectors);
+				if (bounds != null) {
+					double penSize = DoilyUtilities.getPenSize(line.getScaleFactor(), d);
+					wedgeRadius = Math.max(wedgeRadius, bounds.getMaxOrbit()*radius + penSize);
+				}
+			}
+			wedgeRadius += STAMP_SEAM_PADDING;
+
+			// Tile covers the wedge of the first sector with padding so seams overlap
+			double seamAngle = Math.toDegrees(STAMP_SEAM_PADDING/wedgeRadius);
+			wedge = createWedge(wedgeRadius, sectorAngle, 0);
+			Area tileShape = new Area(createWedge(wedgeRadius, sectorAngle, seamAngle));
+			tileShape.add(new Area(new Ellipse2D.Double(-STAMP_SEAM_PADDING, -STAMP_SEAM_PADDING,
+					STAMP_SEAM_PADDING*2, STAMP_SEAM_PADDING*2)));
+			tileBounds = tileShape.getBounds();
+			tile = new BufferedImage(tileBounds.width, tileBounds.height,
+					BufferedImage.TYPE_INT_ARGB);
+			tileClip = tileShape;
+			seamScale = STAMP_SEAM_PADDING/wedgeRadius/sectorAngle;
+		}
+
+		/**
+		 * Create the graphics object lines are rasterized into the tile with, clipped to the 
+		 * padded wedge. It is disposed of when the tile is next flushed.
+		 */
+		private void createTileGraphics() {
+			tg = tile.createGraphics();
+			setGraphicSettings(tg);
+			tg.translate(-tileBounds.x, -tileBounds.y);
+			tg.clip(tileClip);
+			tileOrigin = tg.getTransform();
+		}
+
+		/**
+		 * Draws a range of lines of the current doily, in order, after those already drawn
+		 * by the batch.
+		 * @param start Index of the first line to draw
+		 * @param end Index after the last line to draw
+		 */
+		public void drawLines(int start, int end) {
+			// Later updates only need to draw points added from now, earlier lines are being drawn
+			if (end > 0) {
+				markUpdated(doily.lines.get(end-1));
+			}
+			if (doily.settings.getRenderMode() == RENDER_POLAR) {
+				for (int i=start; i < end; i++) {
+					drawPolarLine(doily.lines.get(i));
+				}
+				return;
+			}
+			if (tile == null) {
+				drawLinesTiled(start, end);
+				return;
+			}
+			for (int i=start; i < end; i++) {
+				drawStampLine(doily.lines.get(i));
+				pending = true;
+			}
+		}
+
+		/**
+		 * Draw a line into the polar texture if it can reach the remapped area.
+		 * @param line Line to draw
+		 */
+		private void drawPolarLine(Line line) {
+			if (polar == null || !isInRing(line, polarBounds, d)) {
+				return;
+			}
+			int radius = DoilyUtilities.getRadius(d);
+			int sectors = doily.settings.getSectors();
+			polar.drawLine(line.getDetailPath(sectors, getDetailRadius(radius)), line.isReflect(),
+					radius, DoilyUtilities.getPenSize(line.getScaleFactor(), d), 
+					line.getColor().getRGB());
+			pending = true;
+		}
+
+		/**
+		 * Draws a range of lines straight onto the graphics object, split into tiles of its
+		 * clip if parallel and larger than a tile. Tile graphics objects are created before
+		 * any are drawn with so the batch's graphics object is only used by this thread.
+		 * @param start Index of the first line to draw
+		 * @param end Index after the last line to draw
+		 */
+		private void drawLinesTiled(int start, int end) {
+			Rectangle bounds = new Rectangle(d);
+			Rectangle clip = g.getClipBounds();
+			if (clip != null) {
+				bounds = bounds.intersection(clip);
+			}
+			if (!parallel || parallelism == 1 || bounds.isEmpty() ||
+					(bounds.width <= tileSize && bounds.height <= tileSize)) {
+				drawLinesDirect(g, d, start, end);
+				return;
+			}
+			ArrayList<RecursiveAction> tasks = new ArrayList<RecursiveAction>();
+			for (int y=bounds.y; y < bounds.getMaxY(); y += tileSize) {
+				for (int x=bounds.x; x < bounds.getMaxX(); x += tileSize) {
+					Graphics2D tg = (Graphics2D) g.create();
+					tg.clip(new Rectangle(x, y, Math.min(tileSize, (int) bounds.getMaxX()-x), 
+							Math.min(tileSize, (int) bounds.getMaxY()-y)));
+					tasks.add(new RecursiveAction() {
+						private static final long serialVersionUID = 1L;
+
+						@Override
+						protected void compute() {
+							drawLinesDirect(tg, d, start, end);
+							tg.dispose();
+						}
+					});
+				}
+			}
+			invokeTasks(tasks);
+		}
+
+		/**
+		 * Rasterize a line into the tile, using only the sector rotations reaching the tile.
+		 * @param line Line to rasterize
+		 */
+		private void drawStampLine(Line line) {
+			int radius = DoilyUtilities.getRadius(d);
+			int sectors = doily.settings.getSectors();
+			double sectorAngle = DoilyUtilities.getSectorAngle(sectors);
+			PolarRegion bounds = line.getPolarRegion(sectors);
+			if (bounds == null) {
+				return;
+			}
+			Path2D path = line.getDetailPath(sectors, getDetailRadius(radius));
+			if (tg == null) {
+				createTileGraphics();
+			}
+			setPen(tg, line, d, radius);
+			// Angular padding required by the pen, the full circle if it covers the centre
+			double penHalf = DoilyUtilities.getPenSize(line.getScaleFactor(), d)/2.0 + 1;
+			double innerOrbit = bounds.getMinOrbit()*radius;
+			double penScale = (penHalf >= innerOrbit) ? sectors :
+				Math.asin(penHalf/innerOrbit)/sectorAngle;
+			double pad = penScale + seamScale;
+			double lower = bounds.getMinClockwise();
+			double upper = bounds.getMaxClockwise();
+			drawStampRotations(tg, path, false, lower - pad, upper + pad,
+					radius, sectors, tileOrigin);
+			if (line.isReflect()) {
+				drawStampRotations(tg, path, true, -upper - pad, -lower + pad,
+						radius, sectors, tileOrigin);
+			}
+		}
+
+		/**
+		 * Draw any lines waiting in the batch. In sector stamp mode the tile is stamped for
+		 * every sector, clipped to the exact wedge so only the padding overlaps, and then
+		 * cleared for further lines, disposing of its graphics object. In polar remap mode the
+		 * texture is remapped in parallel into a transparent tile covering the clip, drawn in
+		 * one go, and then cleared.
+		 * Anti-aliasing smooths remapped edges by filtering the texture.
+		 */
+		public void flush() {
+			if (!pending) {
+				return;
+			}
+			pending = false;
+			if (polar != null) {
+				BufferedImage remapped = new BufferedImage(polarBounds.width, polarBounds.height, 
+						BufferedImage.TYPE_INT_ARGB);
+				invokeTasks(polar.createRemapTasks(remapped, polarBounds.getLocation(), 
+						isAntiAliased()));
+				g.drawImage(remapped, polarBounds.x, polarBounds.y, null);
+				polar.clear();
+				return;
+			}
+			Point centre = DoilyUtilities.getCentre(d);
+			double sectorAngle = DoilyUtilities.getSectorAngle(doily.settings.getSectors());
+			for (int i=0; i < doily.settings.getSectors(); i++) {
+				Graphics2D sg = (Graphics2D) g.create();
+				if (isAntiAliased()) {
+					sg.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+							RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+				}
+				sg.translate(centre.x, centre.y);
+				sg.rotate(sectorAngle*i);
+				sg.clip(wedge);
+				sg.drawImage(tile, tileBounds.x, tileBounds.y, null);
+				sg.dispose();
+			}
+			Graphics2D cg = tile.createGraphics();
+			cg.setComposite(AlphaComposite.Clear);
+			cg.fillRect(0, 0, tile.getWidth(), tile.getHeight());
+			cg.dispose();
+			tg.dispose();
+			tg = null;
+		}
+
+		/**
+		 * Checks whether lines are only drawn when the batch is flushed.
+		 * @return true, if drawing is deferred to flushes
+		 */
+		public boolean isDeferred() {
+			return tile != null || polar != null;
+		}
+
+	}
+
+	/**
+	 * Fork join action that runs a set of tile actions and waits for them all.
+	 * Inner class for DoilyDrawer.
+	 */
+	private static class TileAction extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private ArrayList<RecursiveAction> tasks;
+
+		/**
+		 * Instantiates a new tile action.
+		 * @param tasks Tile tasks to run
+		 */
+		public TileAction(ArrayList<RecursiveAction> tasks) {
+			this.tasks = tasks;
+		}
+
+		@Override
+		protected void compute() {
+			invokeAll(tasks);
+		}
+
+	}
+
 }
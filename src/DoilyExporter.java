@@ -0,0 +1,197 @@
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.swing.JOptionPane;
+import javax.swing.ProgressMonitor;
+import javax.swing.Timer;
+
+/**
+ * DoilyExporter class. Renders and writes doily snapshots to PNG files on a bounded pool
+ * of background workers, showing progress and allowing the export to be cancelled.
+ * 
+ * Digital Doily - COMP1206 Coursework
+ * @author David Jones [dsj1n15]
+ */
+public class DoilyExporter {
+	// Worker settings
+	private static final int MAX_WORKERS = 4;            // Limits memory held by in flight bands
+	private static final int PROGRESS_STEPS = 1000;      // Progress monitor steps per image
+	private static final int PROGRESS_INTERVAL = 100;    // Milliseconds between progress updates
+
+	// Instance variables
+	private ExecutorService workers;                     // Pool that renders exports
+
+	/**
+	 * Instantiates a new doily exporter with a worker per processor (up to a maximum).
+	 */
+	public DoilyExporter() {
+		int count = Math.min(MAX_WORKERS, Runtime.getRuntime().availableProcessors());
+		workers = Executors.newFixedThreadPool(count, new ThreadFactory() {
+			private AtomicInteger created = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "Doily Export " + created.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Exports doilies to their paths in the background. Any overwrite decisions must be
+	 * made before calling so that workers never wait on dialogs.
+	 * This method creates swing components and should therefore only be run on the
+	 * event dispatch thread.
+	 * @param parent Component to show progress over
+	 * @param doilies Doily snapshots to export, these should not be modified after calling
+	 * @param paths Paths to export to, one per doily
+	 * @param size Size of the exported images
+	 */
+	public void export(Component parent, ArrayList<DoilyState> doilies, ArrayList<String> paths,
+			Dimension size) {
+		if (doilies.size() != paths.size()) {
+			throw new IllegalArgumentException("Export requires exactly one path per doily");
+		}
+		int count = doilies.size();
+		if (count == 0) {
+			return;
+		}
+
+		// Progress of every image stored in steps so workers can update it without locking
+		AtomicLongArray progress = new AtomicLongArray(count);
+		ArrayList<String> failed = new ArrayList<String>();
+		ArrayList<Future<?>> jobs = new ArrayList<Future<?>>();
+		for (int i=0; i < count; i++) {
+			jobs.add(workers.submit(new ExportJob(doilies.get(i), paths.get(i), size, progress, i, failed)));
+		}
+
+		// Poll progress from the event dispatch thread until all jobs finish or are cancelled
+		ProgressMonitor monitor = new ProgressMonitor(parent,
+				String.format("Exporting %d image(s)", count), null, 0, count*PROGRESS_STEPS);
+		monitor.setMillisToDecideToPopup(0);
+		Timer timer = new Timer(PROGRESS_INTERVAL, null);
+		timer.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+				// Cancel outstanding jobs if requested
+				if (monitor.isCanceled()) {
+					for (Future<?> job : jobs) {
+						job.cancel(true);
+					}
+				}
+				// Sum progress of all images
+				int complete = 0;
+				long total = 0;
+				for (int i=0; i < count; i++) {
+					total += progress.get(i);
+					if (jobs.get(i).isDone()) {
+						complete++;
+					}
+				}
+				if (complete < count) {
+					monitor.setProgress((int) total);
+					monitor.setNote(String.format("%d of %d complete", complete, count));
+					return;
+				}
+				// All jobs finished, report any failures
+				timer.stop();
+				monitor.close();
+				synchronized (failed) {
+					if (failed.size() > 0) {
+						JOptionPane.showMessageDialog(null,
+								"Export Failed - Could not write:\n" + String.join("\n", failed),
+								"Export Selected", JOptionPane.ERROR_MESSAGE);
+					}
+				}
+			}
+		});
+		timer.start();
+	}
+
+	/**
+	 * A single image export run by a worker.
+	 * Inner class for DoilyExporter.
+	 */
+	private class ExportJob implements Runnable {
+		private DoilyState doily;
+		private String path;
+		private Dimension size;
+		private AtomicLongArray progress;
+		private int index;
+		private ArrayList<String> failed;
+
+		/**
+		 * Instantiates a new export job.
+		 * @param doily Doily snapshot to export
+		 * @param path Path to export to
+		 * @param size Size of the exported image
+		 * @param progress Shared progress of all jobs
+		 * @param index Index of this job's progress
+		 * @param failed Shared list of paths that could not be written
+		 */
+		public ExportJob(DoilyState doily, String path, Dimension size,
+				AtomicLongArray progress, int index, ArrayList<String> failed) {
+			this.doily = doily;
+			this.path = path;
+			this.size = size;
+			this.progress = progress;
+			this.index = index;
+			this.failed = failed;
+		}
+
+		@Override
+		public void run() {
+			File file = new File(path);
+			file.getAbsoluteFile().getParentFile().mkdirs();
+			try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+				new DoilyDrawer(doily).writeDoilyPNG(out, size, DoilyDrawer.DEFAULT_EXPORT_BAND_HEIGHT,
+						new ProgressListener() {
+					public void progressMade(double fraction) {
+						progress.set(index, Math.round(fraction*PROGRESS_STEPS));
+					}
+				});
+			} catch (InterruptedIOException e) {
+				// Cancelled, do not leave a partial image behind
+				file.delete();
+			} catch (IOException | RuntimeException e) {
+				fail(file, e);
+			} catch (Error e) {
+				// Report the image as failed before letting the error end the job
+				fail(file, e);
+				progress.set(index, PROGRESS_STEPS);
+				throw e;
+			}
+			progress.set(index, PROGRESS_STEPS);
+		}
+
+		/**
+		 * Record the image as failed, removing any partial image.
+		 * @param file File that was being written
+		 * @param cause Reason the export failed
+		 */
+		private void fail(File file, Throwable cause) {
+			cause.printStackTrace();
+			file.delete();
+			synchronized (failed) {
+				failed.add(path);
+			}
+		}
+
+	}
+
+}
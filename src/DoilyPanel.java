@@ -1,17 +1,25 @@
+import java.awt.AlphaComposite;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.image.BufferedImage;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Deque;
+import java.util.Map;
+import java.util.TreeMap;
 
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 
 /**
  * DoilyPanel class. Handles creation and viewing of a doily.
@@ -20,11 +28,59 @@ import javax.swing.SwingUtilities;
  * @author David Jones [dsj1n15]
  */
 public class DoilyPanel extends JPanel {
+	// Tools
+	public static final int TOOL_DRAW = 0;
+	public static final int TOOL_ERASE = 1;
+	public static final int TOOL_SELECT = 2;
+	public static final String[] TOOL_NAMES = {"Draw", "Erase", "Select"};
+	private static final int SELECT_RANGE = 3;                             // Pixels around a click to select
+	// Checkpoint defaults
+	private static final int DEFAULT_CHECKPOINT_INTERVAL = 50;             // Lines between checkpoints
+	private static final long DEFAULT_CHECKPOINT_BUDGET = 64L*1024*1024;   // Bytes of checkpoint images
+	private static final int CHECKPOINT_RESTORE_COST = 4096;               // Pixels copied per point drawn
+	// Background render settings
+	private static final long RENDER_BACKGROUND_COST = 50000;              // Replay cost drawn off the EDT
+	private static final long RENDER_PREVIEW_COST = 100000;                // Replay cost given a preview
+	private static final int DEFAULT_SETTLE_DELAY = 300;                   // Idle milliseconds before anti-aliasing
+	private static final int LOW_DETAIL_REDUCTION = 2;                     // Levels of detail dropped at low detail
+
 	// Instance variables
 	private DoilyState doily;								 // Doily to create and draw
 	private DoilyDrawer doilyDrawer;                         // Doily drawer
-	private BufferedImage imgDisplay;                        // Current drawing image
+	private BufferedImage imgRings;                          // Cached rings layer
+	private BufferedImage imgLines;                          // Cached lines layer (image mode)
+	private BufferedImage imgSeparators;                     // Cached separators layer
+	private BufferedImage imgPreview;                        // Stand-in while lines layer renders
+	private RenderWorker renderWorker;                       // Renders lines layer off the EDT
+	private long renderGeneration = -1;                      // Generation of pending render (-1 if none)
+	// Deferred anti-aliasing, lines are drawn in draft until input is idle (anti-aliasing only)
+	private int settleDelay = DEFAULT_SETTLE_DELAY;          // Idle milliseconds before settling (0 if off)
+	private Timer settleTimer;                               // Settles once input is idle
+	private ArrayList<Line> unsettled = new ArrayList<Line>(); // Lines drawn in draft on lines layer
+	private ArrayList<Line> settling = new ArrayList<Line>(); // Lines of pending settle render
+	// Adaptive quality, paint times decide how much quality is given up
+	private boolean adaptiveQuality;                         // Whether quality adapts to paint times
+	private QualityController quality = new QualityController(); // Chooses tier from paint times
 	private Deque<Line> redoStack = new ArrayDeque<Line>();  // Stack of last undone lines
+	private boolean drawing;                                 // Whether the last line is being drawn
+	private int tool = TOOL_DRAW;                            // Tool used by the mouse
+	private LineIndex lineIndex;                             // Index of complete lines (null if stale)
+	private ArrayList<Line> selected = new ArrayList<Line>(); // Lines selected by the select tool
+	// Point capture, points are added to the line being drawn on a capture thread
+	private PointCapture capture;                            // Queues points for the capture thread
+	private final Object captureLock = new Object();         // Guards captured segments
+	private Line capturedLine;                               // Line with captured segments to repaint
+	private int capturedStart;                               // First point of earliest segment to repaint
+	// Raster checkpoints, lines layer after a number of lines (image mode)
+	private TreeMap<Integer, BufferedImage> checkpoints = new TreeMap<Integer, BufferedImage>();
+	private long checkpointBytes;                            // Memory held by checkpoints
+	private int checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL; // Lines between checkpoints
+	private long checkpointBudget = DEFAULT_CHECKPOINT_BUDGET;    // Maximum checkpoint memory
+	private Dimension checkpointSize;                        // Size checkpoints were drawn at
+	private int checkpointSectors;                           // Sectors checkpoints were drawn with
+	private boolean checkpointAntiAlias;                     // Anti-aliasing checkpoints were drawn with
+	private int checkpointRenderMode;                        // Render mode checkpoints were drawn with
+	private int checkpointDetail;                            // Detail reduction checkpoints were drawn with
 
 	/**
 	 * Instantiates a new doily panel with a new doily settings object.
@@ -39,7 +95,23 @@ public class DoilyPanel extends JPanel {
 	 */
 	public DoilyPanel(DoilySettings settings) {
 		// Assign arguments
+		renderWorker = new RenderWorker(new RenderListener() {
+			public void frameRendered(RenderFrame frame) {
+				installFrame(frame);
+			}
+		});
+		settleTimer = new Timer(settleDelay, new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+				settle();
+			}
+		});
+		settleTimer.setRepeats(false);
 		setDoily(new DoilyState(settings, new ArrayList<Line>()));
+		capture = new PointCapture(doily.settings, new CaptureListener() {
+			public void pointsCaptured(Line line, int start) {
+				publishSegment(line, start);
+			}
+		});
 
 		// Add drawing listener 
 		DrawListener drawListener = new DrawListener();
@@ -49,27 +121,595 @@ public class DoilyPanel extends JPanel {
 
 	@Override
 	protected void paintComponent(Graphics gr){
+		long start = System.nanoTime();
 		super.paintComponent(gr);
 		Graphics2D g = (Graphics2D) gr;
 		Dimension d = this.getSize();
+		configureDrawer(doilyDrawer);
 
-		if (doily.settings.isUseImage()) {
+		// All layers are drawn for a single size, discard them all on resize
+		if (imgRings != null && !d.equals(new Dimension(imgRings.getWidth(), imgRings.getHeight()))) {
+			clearLayers();
+		}
+		if (d.width <= 0 || d.height <= 0) {
+			return;
+		}
+
+		// Draw concentric rings (Bottom Layer)
+		if (doily.settings.isShowRings()) {
+			if (imgRings == null) {
+				imgRings = createLayer(d);
+				Graphics2D lg = imgRings.createGraphics();
+				doilyDrawer.drawRings(lg, d);
+				lg.dispose();
+			}
+			g.drawImage(imgRings, 0, 0, null);
+		}
+
+		// Draw lines
+		if (isUseImage()) {
 			// Check if image requires redraw or update
-			if (imgDisplay == null || 
-					!d.equals(new Dimension(imgDisplay.getWidth(), imgDisplay.getHeight()))) {
-				imgDisplay = doilyDrawer.getDoilyImage(d);
+			if (imgLines == null) {
+				drawLinesLayer(d);
 			}
 			else {
-				doilyDrawer.updateDoily(imgDisplay);
+				updateLinesLayer(d);
+			}
+			// Draw buffered image, or a stand-in stretched to fit while it renders
+			if (imgLines != null) {
+				g.drawImage(imgLines, 0, 0, null);
 			}
-			// Draw buffered image
-			g.drawImage(imgDisplay, 0, 0, null);
+			else if (imgPreview != null) {
+				g.drawImage(imgPreview, 0, 0, d.width, d.height, null);
+			}
+		}
+		else {
+			// Whole doily is drawn in draft until input is idle
+			Graphics2D lg = (Graphics2D) g.create();
+			doilyDrawer.setDraft(isDraft() || (isDeferring() && (drawing || settleTimer.isRunning())));
+			doilyDrawer.drawLines(lg, d);
+			doilyDrawer.setDraft(isDraft());
+			lg.dispose();
+		}
+
+		// Highlight selected lines
+		if (selected.size() > 0) {
+			Graphics2D lg = (Graphics2D) g.create();
+			for (Line line : selected) {
+				doilyDrawer.drawHighlight(lg, d, line);
+			}
+			lg.dispose();
+		}
+
+		// Draw separators (Top Layer)
+		if (doily.settings.isShowSeparators()) {
+			if (imgSeparators == null) {
+				imgSeparators = createLayer(d);
+				Graphics2D lg = imgSeparators.createGraphics();
+				doilyDrawer.drawSeparators(lg, d);
+				lg.dispose();
+			}
+			g.drawImage(imgSeparators, 0, 0, null);
+		}
+
+		// Changing tier redraws everything with the new quality
+		if (adaptiveQuality && quality.recordPaint(System.nanoTime() - start)) {
+			redraw();
+		}
+	}
+
+	/**
+	 * Create a transparent layer image of a given size.
+	 * @param d Size of the layer
+	 * @return The layer
+	 */
+	private BufferedImage createLayer(Dimension d) {
+		return new BufferedImage(d.width, d.height, BufferedImage.TYPE_INT_ARGB);
+	}
+
+	/**
+	 * Create the lines layer starting from the nearest checkpoint, replaying only the lines
+	 * after it. Checkpoints are stored for any intervals passed while replaying.
+	 * Replays too costly to draw without delaying the EDT are rendered in the background 
+	 * instead, leaving the layer null until the render is installed.
+	 * @param d Size of the layer
+	 */
+	private void drawLinesLayer(Dimension d) {
+		validateCheckpoints(d);
+		int count = doily.lines.size();
+		int committed = drawing ? count-1 : count;
+		// Restore nearest checkpoint
+		int start = 0;
+		Map.Entry<Integer, BufferedImage> checkpoint = checkpoints.floorEntry(committed);
+		long cost = getReplayCost((checkpoint == null) ? 0 : checkpoint.getKey(), d);
+		if (cost >= RENDER_BACKGROUND_COST) {
+			renderLinesLayer(d, checkpoint, committed, cost >= RENDER_PREVIEW_COST);
+			return;
+		}
+		checkpoint = checkpoints.floorEntry(count);
+		if (checkpoint != null) {
+			start = checkpoint.getKey();
+			imgLines = copyLayer(checkpoint.getValue());
+		}
+		else {
+			imgLines = createLayer(d);
+		}
+		// Replay remaining lines, deferred batches are only flushed for the last checkpoint
+		Graphics2D lg = imgLines.createGraphics();
+		DoilyDrawer.LineBatch batch = doilyDrawer.createBatch(lg, d, true);
+		for (int next = start - start%checkpointInterval + checkpointInterval; next <= committed; 
+				next += checkpointInterval) {
+			batch.drawLines(start, next);
+			if (!batch.isDeferred() || next + checkpointInterval > committed) {
+				batch.flush();
+				storeCheckpoint(next);
+			}
+			start = next;
+		}
+		batch.drawLines(start, count);
+		batch.flush();
+		lg.dispose();
+	}
+
+	/**
+	 * Request the committed lines to be rendered in the background from a checkpoint, unless 
+	 * already requested. The line being drawn is left out and drawn once the render is 
+	 * installed, as are any lines added in the meantime.
+	 * @param d Size of the layer
+	 * @param checkpoint Checkpoint to start from (null if none)
+	 * @param committed Number of lines committed
+	 * @param preview Whether to draw a coarse preview first
+	 */
+	private void renderLinesLayer(Dimension d, Map.Entry<Integer, BufferedImage> checkpoint, 
+			int committed, boolean preview) {
+		if (renderGeneration >= 0) {
+			return;
+		}
+		DoilyDrawer snapshot = new DoilyDrawer(new DoilyState(doily.settings.clone(), 
+				new ArrayList<Line>(doily.lines.subList(0, committed))));
+		configureDrawer(snapshot);
+		if (checkpoint != null) {
+			renderGeneration = renderWorker.render(snapshot, d, checkpoint.getValue(), 
+					checkpoint.getKey(), checkpointInterval, preview);
 		}
 		else {
-			doilyDrawer.drawDoily(g, d);
+			renderGeneration = renderWorker.render(snapshot, d, null, 0, checkpointInterval, preview);
 		}
 	}
 
+	/**
+	 * Use a frame rendered in the background. Previews are shown until the complete frame 
+	 * arrives, which becomes the lines layer once any lines added since it was requested are 
+	 * drawn onto it. Frames of stale renders are ignored.
+	 * @param frame The rendered frame
+	 */
+	private void installFrame(RenderFrame frame) {
+		if (frame.getGeneration() != renderGeneration) {
+			return;
+		}
+		if (frame.getClip() != null) {
+			installSettled(frame);
+			return;
+		}
+		if (!frame.isComplete()) {
+			imgPreview = frame.getImage();
+			repaint();
+			return;
+		}
+		renderGeneration = -1;
+		imgPreview = null;
+		imgLines = frame.getImage();
+		resetUnsettled();
+		Dimension d = frame.getSize();
+		validateCheckpoints(d);
+		for (Map.Entry<Integer, BufferedImage> checkpoint : frame.getCheckpoints().entrySet()) {
+			if (!checkpoints.containsKey(checkpoint.getKey()) 
+					&& getLayerBytes(checkpoint.getValue()) <= checkpointBudget) {
+				checkpoints.put(checkpoint.getKey(), checkpoint.getValue());
+				checkpointBytes += getLayerBytes(checkpoint.getValue());
+			}
+		}
+		trimCheckpoints();
+		Graphics2D lg = imgLines.createGraphics();
+		doilyDrawer.drawLines(lg, d, frame.getLineCount(), doily.lines.size());
+		lg.dispose();
+		repaint();
+	}
+
+	/**
+	 * Cancel any lines layer, or regions of it, being rendered in the background.
+	 */
+	private void cancelRender() {
+		if (renderGeneration >= 0) {
+			renderWorker.cancel();
+			renderGeneration = -1;
+		}
+		settling.clear();
+	}
+
+	/**
+	 * Bring the lines layer up to date, drawing new points in draft if anti-aliasing is
+	 * deferred.
+	 * @param d Size of the layer
+	 */
+	private void updateLinesLayer(Dimension d) {
+		Graphics2D lg = imgLines.createGraphics();
+		doilyDrawer.setDraft(isDraft() || isDeferring());
+		doilyDrawer.updateLines(lg, d);
+		doilyDrawer.setDraft(isDraft());
+		lg.dispose();
+	}
+
+	/**
+	 * Gets whether anti-aliasing of lines being drawn is deferred until input is idle.
+	 * @return true, if lines are drawn in draft
+	 */
+	private boolean isDeferring() {
+		return settleDelay > 0 && isAntiAlias();
+	}
+
+	/**
+	 * Gets whether lines are drawn in a lines layer, either as chosen by the settings or as 
+	 * chosen by the quality tier.
+	 * @return true, if using a lines layer
+	 */
+	private boolean isUseImage() {
+		return doily.settings.isUseImage() 
+				|| (adaptiveQuality && quality.getTier() >= QualityController.QUALITY_IMAGE);
+	}
+
+	/**
+	 * Gets whether lines are drawn with anti-aliasing, only if chosen by the settings and 
+	 * allowed by the quality tier.
+	 * @return true, if using anti-aliasing
+	 */
+	private boolean isAntiAlias() {
+		return doily.settings.isAntiAlias() && !isDraft();
+	}
+
+	/**
+	 * Gets whether the quality tier ignores anti-aliasing.
+	 * @return true, if drawing in draft
+	 */
+	private boolean isDraft() {
+		return adaptiveQuality && quality.getTier() >= QualityController.QUALITY_DRAFT;
+	}
+
+	/**
+	 * Gets the number of levels of detail the quality tier drops from lines.
+	 * @return The detail reduction
+	 */
+	private int getDetailReduction() {
+		return (adaptiveQuality && quality.getTier() >= QualityController.QUALITY_LOW_DETAIL) ? 
+				LOW_DETAIL_REDUCTION : 0;
+	}
+
+	/**
+	 * Configure a drawer to draw at the quality of the current tier.
+	 * @param drawer Drawer to configure
+	 */
+	private void configureDrawer(DoilyDrawer drawer) {
+		drawer.setDraft(isDraft());
+		drawer.setDetailReduction(getDetailReduction());
+	}
+
+	/**
+	 * Record a line as drawn in draft, restarting the wait for input to be idle.
+	 * @param line Line drawn in draft
+	 */
+	private void unsettle(Line line) {
+		if (!isDeferring()) {
+			return;
+		}
+		if (!unsettled.contains(line)) {
+			unsettled.add(line);
+		}
+		settleTimer.restart();
+	}
+
+	/**
+	 * Forget lines drawn in draft as the lines layer is being redrawn with anti-aliasing. 
+	 * Only the line being drawn stays in draft.
+	 */
+	private void resetUnsettled() {
+		unsettled.clear();
+		if (drawing && doily.lines.size() > 0) {
+			unsettled.add(getLastLine());
+		}
+	}
+
+	/**
+	 * Redraw the areas covered by lines drawn in draft with anti-aliasing. The areas are 
+	 * rendered in the background and replace the lines layer's areas once complete. Without
+	 * a lines layer the whole doily is simply repainted.
+	 */
+	private void settle() {
+		if (drawing) {
+			return;
+		}
+		if (!isUseImage()) {
+			unsettled.clear();
+			repaint();
+			return;
+		}
+		// Areas already being settled are settled again with any lines drawn since
+		if (!settling.isEmpty()) {
+			cancelRender();
+		}
+		// A pending render of the whole layer already draws every line with anti-aliasing
+		if (renderGeneration >= 0) {
+			return;
+		}
+		if (imgLines == null || !isDeferring()) {
+			unsettled.clear();
+			return;
+		}
+		Dimension d = new Dimension(imgLines.getWidth(), imgLines.getHeight());
+		ArrayList<PolarRegion> regions = new ArrayList<PolarRegion>();
+		for (Line line : unsettled) {
+			PolarRegion region = doilyDrawer.getDamageRegion(line, d);
+			if (region != null) {
+				regions.add(region);
+			}
+		}
+		if (regions.isEmpty()) {
+			unsettled.clear();
+			return;
+		}
+		settling.addAll(unsettled);
+		DoilyState snapshot = new DoilyState(doily.settings.clone(), 
+				new ArrayList<Line>(doily.lines));
+		renderGeneration = renderWorker.render(snapshot, d, regions);
+	}
+
+	/**
+	 * Replace areas of the lines layer with the same areas rendered with anti-aliasing. Any 
+	 * lines added since the render was requested are drawn on top. Checkpoints holding lines 
+	 * drawn in draft are replaced.
+	 * @param frame The rendered areas
+	 */
+	private void installSettled(RenderFrame frame) {
+		renderGeneration = -1;
+		Dimension d = frame.getSize();
+		if (imgLines == null || imgLines.getWidth() != d.width || imgLines.getHeight() != d.height) {
+			settling.clear();
+			return;
+		}
+		Shape clip = frame.getClip();
+		Graphics2D lg = imgLines.createGraphics();
+		lg.clip(clip);
+		lg.setComposite(AlphaComposite.Clear);
+		lg.fill(clip);
+		lg.setComposite(AlphaComposite.SrcOver);
+		lg.drawImage(frame.getImage(), 0, 0, null);
+		doilyDrawer.drawLines(lg, d, frame.getLineCount(), doily.lines.size());
+		lg.dispose();
+		// Checkpoints from the first settled line on hold it in draft
+		int first = doily.lines.size();
+		for (Line line : settling) {
+			int index = doily.lines.indexOf(line);
+			if (index >= 0) {
+				first = Math.min(first, index);
+			}
+		}
+		dropCheckpoints(first);
+		unsettled.removeAll(settling);
+		settling.clear();
+		checkpointLines();
+		repaint(clip.getBounds());
+	}
+
+	/**
+	 * Gets the milliseconds input must be idle for before lines drawn in draft are redrawn 
+	 * with anti-aliasing.
+	 * @return The settle delay, 0 if lines are never drawn in draft
+	 */
+	public int getSettleDelay() {
+		return settleDelay;
+	}
+
+	/**
+	 * Sets the milliseconds input must be idle for before lines drawn in draft are redrawn 
+	 * with anti-aliasing. Lines are only drawn in draft when anti-aliasing is enabled.
+	 * @param settleDelay The new settle delay, 0 to always draw with anti-aliasing
+	 */
+	public void setSettleDelay(int settleDelay) {
+		if (settleDelay < 0) {
+			throw new IllegalArgumentException("Settle delay must not be negative");
+		}
+		this.settleDelay = settleDelay;
+		if (settleDelay > 0) {
+			settleTimer.setInitialDelay(settleDelay);
+		}
+		else if (settleTimer.isRunning()) {
+			settleTimer.stop();
+			settle();
+		}
+	}
+
+	/**
+	 * Create a copy of a layer.
+	 * @param layer Layer to copy
+	 * @return The copy
+	 */
+	private BufferedImage copyLayer(BufferedImage layer) {
+		return new BufferedImage(layer.getColorModel(), layer.copyData(null), 
+				layer.isAlphaPremultiplied(), null);
+	}
+
+	/**
+	 * Gets the memory held by a layer.
+	 * @param layer Layer to measure
+	 * @return The size in bytes
+	 */
+	private long getLayerBytes(BufferedImage layer) {
+		return (long) layer.getWidth()*layer.getHeight()*4;
+	}
+
+	/**
+	 * Discard all checkpoints if they were not drawn at a given size with the current settings.
+	 * @param d Size of the lines layer
+	 */
+	private void validateCheckpoints(Dimension d) {
+		DoilySettings settings = doily.settings;
+		if (!d.equals(checkpointSize) || settings.getSectors() != checkpointSectors 
+				|| isAntiAlias() != checkpointAntiAlias 
+				|| settings.getRenderMode() != checkpointRenderMode
+				|| getDetailReduction() != checkpointDetail) {
+			clearCheckpoints();
+			checkpointSize = d;
+			checkpointSectors = settings.getSectors();
+			checkpointAntiAlias = isAntiAlias();
+			checkpointRenderMode = settings.getRenderMode();
+			checkpointDetail = getDetailReduction();
+		}
+	}
+
+	/**
+	 * Store a copy of the lines layer as a checkpoint, evicting the earliest checkpoints if 
+	 * over budget as later checkpoints are closest to the lines being changed.
+	 * @param count Number of lines drawn on the lines layer
+	 */
+	private void storeCheckpoint(int count) {
+		long bytes = getLayerBytes(imgLines);
+		if (bytes > checkpointBudget || checkpoints.containsKey(count)) {
+			return;
+		}
+		checkpoints.put(count, copyLayer(imgLines));
+		checkpointBytes += bytes;
+		trimCheckpoints();
+	}
+
+	/**
+	 * Evict the earliest checkpoints until within budget.
+	 */
+	private void trimCheckpoints() {
+		while (checkpointBytes > checkpointBudget) {
+			checkpointBytes -= getLayerBytes(checkpoints.pollFirstEntry().getValue());
+		}
+	}
+
+	/**
+	 * Discard checkpoints of more than a given number of lines.
+	 * @param count Number of lines still valid
+	 */
+	private void dropCheckpoints(int count) {
+		while (!checkpoints.isEmpty() && checkpoints.lastKey() > count) {
+			checkpointBytes -= getLayerBytes(checkpoints.pollLastEntry().getValue());
+		}
+	}
+
+	/**
+	 * Discard all checkpoints.
+	 */
+	private void clearCheckpoints() {
+		checkpoints.clear();
+		checkpointBytes = 0;
+	}
+
+	/**
+	 * Store a checkpoint if the lines committed so far complete an interval.
+	 */
+	private void checkpointLines() {
+		int count = doily.lines.size();
+		if (imgLines == null || count == 0 || count%checkpointInterval != 0) {
+			return;
+		}
+		Dimension d = new Dimension(imgLines.getWidth(), imgLines.getHeight());
+		if (!d.equals(getSize())) {
+			return;
+		}
+		validateCheckpoints(d);
+		// Bring layer up to date as a paint may still be pending
+		updateLinesLayer(d);
+		storeCheckpoint(count);
+	}
+
+	/**
+	 * Gets the number of lines between checkpoints.
+	 * @return The checkpoint interval
+	 */
+	public int getCheckpointInterval() {
+		return checkpointInterval;
+	}
+
+	/**
+	 * Sets the number of lines between checkpoints.
+	 * @param checkpointInterval The new checkpoint interval
+	 */
+	public void setCheckpointInterval(int checkpointInterval) {
+		if (checkpointInterval <= 0) {
+			throw new IllegalArgumentException("Checkpoint interval must be positive");
+		}
+		this.checkpointInterval = checkpointInterval;
+	}
+
+	/**
+	 * Gets the maximum memory held by checkpoints.
+	 * @return The checkpoint budget in bytes
+	 */
+	public long getCheckpointBudget() {
+		return checkpointBudget;
+	}
+
+	/**
+	 * Sets the maximum memory held by checkpoints, 0 disables checkpoints.
+	 * @param checkpointBudget The new checkpoint budget in bytes
+	 */
+	public void setCheckpointBudget(long checkpointBudget) {
+		if (checkpointBudget < 0) {
+			throw new IllegalArgumentException("Checkpoint budget must not be negative");
+		}
+		this.checkpointBudget = checkpointBudget;
+		trimCheckpoints();
+	}
+
+	/**
+	 * Gets whether quality is chosen from the time taken by paints.
+	 * @return true, if quality is adaptive
+	 */
+	public boolean isAdaptiveQuality() {
+		return adaptiveQuality;
+	}
+
+	/**
+	 * Sets whether quality is chosen from the time taken by paints. When adaptive, quality
+	 * tiers give up the quality chosen by the settings, in order, using a lines layer, then 
+	 * drawing without anti-aliasing, then drawing lines with less detail, until paints fit 
+	 * the quality controller's frame budget. Quality is never better than chosen by the 
+	 * settings.
+	 * @param adaptiveQuality Whether quality is adaptive
+	 */
+	public void setAdaptiveQuality(boolean adaptiveQuality) {
+		this.adaptiveQuality = adaptiveQuality;
+		quality.reset();
+		redraw();
+	}
+
+	/**
+	 * Gets the controller choosing the quality tier, holding the tier and measured paint 
+	 * times. Paints are only measured while quality is adaptive.
+	 * @return The quality controller
+	 */
+	public QualityController getQualityController() {
+		return quality;
+	}
+
+	/**
+	 * Discard all cached layers so they are redrawn on the next paint.
+	 */
+	private void clearLayers() {
+		// Last lines layer stands in until the new one is drawn
+		if (imgLines != null) {
+			imgPreview = imgLines;
+		}
+		cancelRender();
+		imgRings = null;
+		imgLines = null;
+		imgSeparators = null;
+		resetUnsettled();
+	}
+
 	/**
 	 * Gets the current doily object.
 	 * @return The doily
@@ -83,19 +723,29 @@ public class DoilyPanel extends JPanel {
 	 * @param doily The new doily
 	 */
 	public void setDoily(DoilyState doily) {
+		if (capture != null) {
+			capture.flush();
+			capture.setSettings(doily.settings);
+		}
 		this.doily = doily;
 		// Create doily drawer
 		doilyDrawer = new DoilyDrawer(doily);
 		clearRedoStack();
+		clearCheckpoints();
+		lineIndex = null;
+		selected.clear();
 		redraw();
 	}
 
 	/**
-	 * Resets the image object, forcing a full redraw on paint.
+	 * Resets all cached layers, forcing a full redraw on paint. Lines are redrawn from the
+	 * nearest checkpoint if the checkpoints are still valid.
+	 * Guides are drawn to their own layers regardless of whether they are shown, so toggling
+	 * their visibility only requires a repaint.
 	 * Triggers repaint to apply updates.
 	 */
 	public void redraw() {
-		imgDisplay = null;
+		clearLayers();
 		repaint();
 	}
 
@@ -105,9 +755,9 @@ public class DoilyPanel extends JPanel {
 	 */
 	private Line addLine() {
 		// Create a new line
-		Line line = new Line(doily.settings.getPenScale(), 
-				doily.settings.getPenColor(), doily.settings.isReflect());
-		doily.lines.add(line);
+		Line line = new Line(doily.settings.getPenScale(), doily.settings.getPenColor(), 
+				doily.settings.isReflect(), doily.settings.isFitCurves());
+		doily.startLine(line);
 		return line;
 	}
 
@@ -123,9 +773,22 @@ public class DoilyPanel extends JPanel {
 	 * Clear all lines and the redo stack.
 	 */
 	public void clear() {
+		cancelRender();
+		imgPreview = null;
+		unsettled.clear();
 		doily.lines.clear();
 		clearRedoStack();
-		redraw();
+		clearCheckpoints();
+		lineIndex = null;
+		selected.clear();
+		// Every region is now empty, guide layers are unaffected
+		if (imgLines != null) {
+			Graphics2D lg = imgLines.createGraphics();
+			lg.setComposite(AlphaComposite.Clear);
+			lg.fillRect(0, 0, imgLines.getWidth(), imgLines.getHeight());
+			lg.dispose();
+		}
+		repaint();
 	}
 
 	/**
@@ -136,7 +799,12 @@ public class DoilyPanel extends JPanel {
 			Line line = getLastLine();
 			doily.lines.remove(line);
 			redoStack.push(line);
-			redraw();
+			dropCheckpoints(doily.lines.size());
+			if (lineIndex != null) {
+				lineIndex.remove(line);
+			}
+			selected.remove(line);
+			invalidateRegion(line);
 		}
 		else {
 			JOptionPane.showMessageDialog(null,
@@ -150,8 +818,23 @@ public class DoilyPanel extends JPanel {
 	 */
 	public void redo() {
 		if (redoStack.size() > 0) {
-			doily.lines.add(redoStack.pop());
-			repaint();
+			Line line = redoStack.pop();
+			doily.lines.add(line);
+			if (lineIndex != null) {
+				lineIndex.insert(line);
+			}
+			// Draw the restored line now, an update only draws the last line so would miss it
+			// after a further redo
+			if (imgLines != null) {
+				Graphics2D lg = imgLines.createGraphics();
+				doilyDrawer.setDraft(isDraft() || isDeferring());
+				doilyDrawer.drawAddedLine(lg, line, 
+						new Dimension(imgLines.getWidth(), imgLines.getHeight()));
+				doilyDrawer.setDraft(isDraft());
+				lg.dispose();
+			}
+			repaintRegion(line);
+			unsettle(line);
 		}
 		else {
 			JOptionPane.showMessageDialog(null,
@@ -160,6 +843,232 @@ public class DoilyPanel extends JPanel {
 		}
 	}
 
+	/**
+	 * Gets the tool used by the mouse.
+	 * @return The tool
+	 */
+	public int getTool() {
+		return tool;
+	}
+
+	/**
+	 * Sets the tool used by the mouse, clearing any selection.
+	 * @param tool The new tool
+	 */
+	public void setTool(int tool) {
+		this.tool = tool;
+		selected.clear();
+		repaint();
+	}
+
+	/**
+	 * Gets the lines selected by the select tool.
+	 * @return The selected lines
+	 */
+	public ArrayList<Line> getSelected() {
+		return selected;
+	}
+
+	/**
+	 * Remove all selected lines.
+	 */
+	public void deleteSelected() {
+		if (selected.size() > 0) {
+			for (Line line : new ArrayList<Line>(selected)) {
+				removeLine(line);
+			}
+		}
+		else {
+			JOptionPane.showMessageDialog(null,
+					"Delete Failed - Nothing selected", 
+					"Delete Selected", JOptionPane.ERROR_MESSAGE);
+		}
+	}
+
+	/**
+	 * Remove a line from anywhere in the doily, redrawing only the area it covered.
+	 * @param line Line to remove
+	 */
+	public void removeLine(Line line) {
+		int index = doily.lines.indexOf(line);
+		if (index < 0) {
+			return;
+		}
+		doily.lines.remove(index);
+		dropCheckpoints(index);
+		if (lineIndex != null) {
+			lineIndex.remove(line);
+		}
+		selected.remove(line);
+		invalidateRegion(line);
+	}
+
+	/**
+	 * Gets the index of complete lines, rebuilding it if the sector count has changed.
+	 * @return The line index
+	 */
+	private LineIndex getLineIndex() {
+		int sectors = doily.settings.getSectors();
+		if (lineIndex == null || lineIndex.getSectors() != sectors) {
+			lineIndex = new LineIndex(sectors);
+			int committed = drawing ? doily.lines.size()-1 : doily.lines.size();
+			for (int i=0; i < committed; i++) {
+				lineIndex.insert(doily.lines.get(i));
+			}
+		}
+		return lineIndex;
+	}
+
+	/**
+	 * Redraw the area of the lines layer that a removed line covered in every sector. The
+	 * area is cleared and only lines that can be drawn within it are redrawn, clipped to it,
+	 * unless replaying lines from the nearest checkpoint would draw fewer points.
+	 * @param line Line that has been removed
+	 */
+	private void invalidateRegion(Line line) {
+		// Any areas being settled may still hold the line, so must be settled again
+		unsettled.remove(line);
+		if (!settling.isEmpty()) {
+			cancelRender();
+			settleTimer.restart();
+		}
+		if (imgLines == null) {
+			// Any render in progress includes the line, so must start again
+			if (renderGeneration >= 0) {
+				cancelRender();
+				repaint();
+			}
+			else {
+				repaintRegion(line);
+			}
+			return;
+		}
+		// Layer may be pending a resize so use its own size
+		Dimension d = new Dimension(imgLines.getWidth(), imgLines.getHeight());
+		PolarRegion region = doilyDrawer.getDamageRegion(line, d);
+		if (region == null) {
+			return;
+		}
+		validateCheckpoints(d);
+		Map.Entry<Integer, BufferedImage> checkpoint = checkpoints.floorEntry(doily.lines.size());
+		if (checkpoint != null && getReplayCost(checkpoint.getKey(), d) < getRegionCost(region, d)) {
+			imgLines = null;
+			repaint();
+			return;
+		}
+		Shape shape = doilyDrawer.createDamageShape(region, d);
+		Graphics2D lg = imgLines.createGraphics();
+		lg.clip(shape);
+		lg.setComposite(AlphaComposite.Clear);
+		lg.fill(shape);
+		lg.setComposite(AlphaComposite.SrcOver);
+		doilyDrawer.drawLines(lg, d, region);
+		lg.dispose();
+		repaint(shape.getBounds());
+	}
+
+	/**
+	 * Estimate the cost of redrawing a region as the number of points that would be drawn.
+	 * @param region Region to redraw
+	 * @param d Size of the lines layer
+	 * @return The cost
+	 */
+	private long getRegionCost(PolarRegion region, Dimension d) {
+		long cost = 0;
+		for (Line line : doily.lines) {
+			PolarRegion lineRegion = doilyDrawer.getDamageRegion(line, d);
+			if (lineRegion != null && lineRegion.intersects(region)) {
+				cost += line.getPointCount();
+			}
+		}
+		return cost;
+	}
+
+	/**
+	 * Estimate the cost of restoring a checkpoint and replaying the lines after it as the 
+	 * number of points that would be drawn.
+	 * @param start Number of lines in the checkpoint
+	 * @param d Size of the lines layer
+	 * @return The cost
+	 */
+	private long getReplayCost(int start, Dimension d) {
+		long cost = (long) d.width*d.height/CHECKPOINT_RESTORE_COST;
+		for (int i=start; i < doily.lines.size(); i++) {
+			cost += doily.lines.get(i).getPointCount();
+		}
+		return cost;
+	}
+
+	/**
+	 * Repaint only the area a line covers in every sector.
+	 * @param line Line to repaint
+	 */
+	private void repaintRegion(Line line) {
+		PolarRegion region = doilyDrawer.getDamageRegion(line, getSize());
+		if (region != null) {
+			repaint(doilyDrawer.createDamageShape(region, getSize()).getBounds());
+		}
+	}
+
+	/**
+	 * Pass a segment changed by the capture thread to the Event Dispatch Thread to be 
+	 * repainted. Segments of a line waiting to be repainted are merged, so a burst of 
+	 * captured points is only repainted once.
+	 * @param line Line that has changed
+	 * @param start Index of the first point that needs painting
+	 */
+	private void publishSegment(final Line line, final int start) {
+		synchronized (captureLock) {
+			if (capturedLine == line) {
+				capturedStart = Math.min(capturedStart, start);
+				return;
+			}
+			if (capturedLine == null) {
+				capturedLine = line;
+				capturedStart = start;
+				SwingUtilities.invokeLater(new Runnable() {
+					public void run() {
+						repaintCaptured();
+					}
+				});
+				return;
+			}
+		}
+		// Segments of an earlier line are still waiting, repaint this one separately
+		SwingUtilities.invokeLater(new Runnable() {
+			public void run() {
+				repaintSegment(line, start);
+			}
+		});
+	}
+
+	/**
+	 * Repaint the captured segments waiting to be repainted.
+	 */
+	private void repaintCaptured() {
+		Line line;
+		int start;
+		synchronized (captureLock) {
+			line = capturedLine;
+			start = capturedStart;
+			capturedLine = null;
+		}
+		if (line != null) {
+			repaintSegment(line, start);
+		}
+	}
+
+	/**
+	 * Repaint only the areas covered by a line's points from a given index in every sector.
+	 * @param line Line that has changed
+	 * @param start Index of the first point that needs painting
+	 */
+	private void repaintSegment(Line line, int start) {
+		for (Rectangle rect : doilyDrawer.getSegmentDamage(line, start, getSize())) {
+			repaint(rect);
+		}
+	}
+
 	/**
 	 * Clear the redo stack.
 	 */
@@ -179,15 +1088,23 @@ public class DoilyPanel extends JPanel {
 			if (!SwingUtilities.isLeftMouseButton(e)) {
 				return;
 			}
-
-			// Add a point to a new line
-			Line line = addLine();
 			Point point = DoilyUtilities.centrePoint(e.getPoint(), getSize());
-			line.addPoint(point, getSize(), doily.settings);
+			if (tool == TOOL_ERASE) {
+				erase(point);
+			}
+			else if (tool == TOOL_SELECT) {
+				select(point, e.isShiftDown());
+			}
+			else {
+				// Add a point to a new line, painted once the capture thread has added it
+				Line line = addLine();
+				drawing = true;
+				settleTimer.stop();
+				capture.capture(line, point.x, point.y, getSize());
 
-			// Forget lines from undo
-			clearRedoStack();
-			repaint();
+				// Forget lines from undo
+				clearRedoStack();
+			}
 		}
 
 		@Override
@@ -196,15 +1113,74 @@ public class DoilyPanel extends JPanel {
 			if (!SwingUtilities.isLeftMouseButton(e)) {
 				return;
 			}
-
-			// Add a point to the current line
-			Line line = getLastLine();
 			Point point = DoilyUtilities.centrePoint(e.getPoint(), getSize());
-			line.addPoint(point, getSize(), doily.settings);
+			if (tool == TOOL_ERASE) {
+				erase(point);
+				return;
+			}
+			if (!drawing) {
+				return;
+			}
 
-			repaint();
+			// Queue a point for the current line, the capture thread adds it
+			capture.capture(getLastLine(), point.x, point.y, getSize());
 		}	
 
+		@Override
+		public void mouseReleased(MouseEvent e) {
+			// Only acknowledge button1
+			if (!SwingUtilities.isLeftMouseButton(e) || !drawing) {
+				return;
+			}
+
+			// Line is complete once every queued point has been added
+			capture.flush();
+			drawing = false;
+			unsettle(getLastLine());
+			doily.storeLine(getLastLine());
+			if (lineIndex != null) {
+				lineIndex.insert(getLastLine());
+			}
+			checkpointLines();
+		}
+
+		/**
+		 * Remove all lines under the pen at a given point.
+		 * @param point Point relative to the centre
+		 */
+		private void erase(Point point) {
+			double range = DoilyUtilities.getPenSize(doily.settings.getPenScale(), getSize())/2.0;
+			for (Line line : getLineIndex().findLines(point, range, getSize())) {
+				removeLine(line);
+			}
+		}
+
+		/**
+		 * Select the top line at a given point.
+		 * @param point Point relative to the centre
+		 * @param add Whether to toggle the line in the current selection instead of replacing it
+		 */
+		private void select(Point point, boolean add) {
+			// Find top line hit
+			Line top = null;
+			int topIndex = -1;
+			for (Line line : getLineIndex().findLines(point, SELECT_RANGE, getSize())) {
+				int index = doily.lines.indexOf(line);
+				if (index > topIndex) {
+					top = line;
+					topIndex = index;
+				}
+			}
+			// Update selection
+			if (!add) {
+				selected.clear();
+			}
+			if (top != null && !selected.remove(top)) {
+				selected.add(top);
+			}
+			repaint();
+		}
+
 	}
 
-}
\ No newline at end of file
+}
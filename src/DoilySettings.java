@@ -10,6 +10,7 @@ public class DoilySettings {
 	// Default setting boundaries
 	public static final int MIN_SECTORS = 1;
 	public static final int MAX_SECTORS = 100;
+	public static final int MAX_POLAR_SECTORS = 2000;   // Sectors allowed when remapping polar
 	public static final int MIN_PEN_SIZE = 1;
 	public static final int MAX_PEN_SIZE = 100;
 	// Default settings
@@ -18,11 +19,15 @@ public class DoilySettings {
 	private static final boolean DEFAULT_SHOW_RINGS = true;
 	private static final boolean DEFAULT_USE_IMAGE = false;	
 	private static final boolean DEFAULT_ANTI_ALIAS = false;	
+	private static final int DEFAULT_RENDER_MODE = DoilyDrawer.RENDER_PATHS;
 	private static final int DEFAULT_PEN_SCALE = 10;
 	private static final Color DEFAULT_PEN_COLOR = Color.WHITE;
 	private static final boolean DEFAULT_REFLECT = false;
 	private static final boolean DEFAULT_CIRCLE_BOUNDED = true;
 	private static final boolean DEFAULT_INTERPOLATE = true;
+	private static final double DEFAULT_DECIMATION_TOLERANCE = 0.001;
+	private static final boolean DEFAULT_FIT_CURVES = false;
+	private static final double DEFAULT_CURVE_TOLERANCE = 0.005;
 
 	// Drawing Settings
 	private int sectors;                // Number of sectors
@@ -30,6 +35,7 @@ public class DoilySettings {
 	private boolean showRings;          // Whether to show concentric rings
 	private boolean useImage;           // Whether to render drawings as images
 	private boolean antiAlias;          // Whether anti-aliasing is enabled
+	private int renderMode;             // Method used to render lines
 
 	// Pen Settings
 	private int penScale;               // Scale of pen for new lines
@@ -37,15 +43,18 @@ public class DoilySettings {
 	private boolean reflect;            // Whether new lines should be reflected
 	private boolean circleBounded;      // Whether lines should be bound by the circle radius
 	private boolean interpolate;        // Whether lines should use linear interpolation
+	private double decimationTolerance; // Unit distance within which captured points are dropped
+	private double curveTolerance;      // Unit distance curves are fitted within (0 if not fitting)
 
 	/**
 	 * Instantiates a new doily settings with defaults.
 	 */
 	public DoilySettings() {
 		this(DEFAULT_SECTORS, DEFAULT_SHOW_SEPARATORS, DEFAULT_SHOW_RINGS, 
-				DEFAULT_USE_IMAGE, DEFAULT_ANTI_ALIAS, DEFAULT_PEN_SCALE, 
+				DEFAULT_USE_IMAGE, DEFAULT_ANTI_ALIAS, DEFAULT_RENDER_MODE, DEFAULT_PEN_SCALE, 
 				DEFAULT_PEN_COLOR, DEFAULT_REFLECT, DEFAULT_CIRCLE_BOUNDED, 
-				DEFAULT_INTERPOLATE);
+				DEFAULT_INTERPOLATE, DEFAULT_DECIMATION_TOLERANCE, 
+				DEFAULT_FIT_CURVES ? DEFAULT_CURVE_TOLERANCE : 0);
 	}
 
 	/**
@@ -55,26 +64,33 @@ public class DoilySettings {
 	 * @param showRings Whether to show concentric rings
 	 * @param useImage Whether to render drawings as images
 	 * @param antiAlias Whether anti-aliasing is enabled
+	 * @param renderMode Method used to render lines
 	 * @param penScale Scale of pen for new lines
 	 * @param penColor Colour of the pen for new lines
 	 * @param reflect Whether new lines should be reflected
 	 * @param circleBounded Whether lines should be bound by the circle radius
 	 * @param interpolate Whether lines should use linear interpolation
+	 * @param decimationTolerance Unit distance within which captured points are dropped
+	 * @param curveTolerance Unit distance curves are fitted within (0 if not fitting)
 	 */
 	public DoilySettings(int sectors, boolean showSeperators, boolean showRings, 
-			boolean useImage, boolean antiAlias, int penScale, Color penColor, 
-			boolean reflect, boolean circleBounded, boolean interpolate) {
+			boolean useImage, boolean antiAlias, int renderMode, int penScale, Color penColor, 
+			boolean reflect, boolean circleBounded, boolean interpolate, double decimationTolerance,
+			double curveTolerance) {
 		// Assign setting arguments
 		this.sectors = sectors;
 		this.showSeparators = showSeperators;
 		this.showRings = showRings;
 		this.useImage = useImage;
 		this.antiAlias = antiAlias;
+		this.renderMode = renderMode;
 		this.penScale = penScale;
 		this.penColor = penColor;
 		this.reflect = reflect;
 		this.circleBounded = circleBounded;
 		this.interpolate = interpolate;
+		this.decimationTolerance = decimationTolerance;
+		this.curveTolerance = curveTolerance;
 	}
 
 
@@ -94,6 +110,19 @@ public class DoilySettings {
 		this.sectors = sectors;
 	}
 
+	/**
+	 * Gets the most sectors that can be chosen for a render mode. Only the Polar Remap 
+	 * renderer draws in about the same time for any sector count, so allows more.
+	 * @param renderMode One of the DoilyDrawer render modes
+	 * @return The maximum number of sectors
+	 */
+	public static int getMaxSectors(int renderMode) {
+		if (renderMode == DoilyDrawer.RENDER_POLAR) {
+			return MAX_POLAR_SECTORS;
+		}
+		return MAX_SECTORS;
+	}
+
 	/**
 	 * Checks value of show separators.
 	 * @return true, if show separators
@@ -158,6 +187,22 @@ public class DoilySettings {
 		this.antiAlias = antiAlias;
 	}
 
+	/**
+	 * Gets the render mode.
+	 * @return The render mode
+	 */
+	public int getRenderMode() {
+		return renderMode;
+	}
+
+	/**
+	 * Sets the render mode, one of the DoilyDrawer render modes.
+	 * @param renderMode The new render mode
+	 */
+	public void setRenderMode(int renderMode) {
+		this.renderMode = renderMode;
+	}
+
 	/**
 	 * Gets the pen scale.
 	 * @return the pen scale
@@ -238,10 +283,77 @@ public class DoilySettings {
 		this.interpolate = interpolate;
 	}
 
+	/**
+	 * Gets the decimation tolerance.
+	 * @return The decimation tolerance
+	 */
+	public double getDecimationTolerance() {
+		return decimationTolerance;
+	}
+
+	/**
+	 * Sets the distance on a unit circle within which captured points are dropped, 0 disables
+	 * decimation.
+	 * @param decimationTolerance The new decimation tolerance
+	 */
+	public void setDecimationTolerance(double decimationTolerance) {
+		this.decimationTolerance = decimationTolerance;
+	}
+
+	/**
+	 * Checks whether decimation is enabled.
+	 * @return true, if decimate
+	 */
+	public boolean isDecimate() {
+		return decimationTolerance > 0;
+	}
+
+	/**
+	 * Sets whether to decimate using the default tolerance.
+	 * @param decimate The new decimate value
+	 */
+	public void setDecimate(boolean decimate) {
+		this.decimationTolerance = decimate ? DEFAULT_DECIMATION_TOLERANCE : 0;
+	}
+
+	/**
+	 * Gets the curve tolerance.
+	 * @return The curve tolerance
+	 */
+	public double getCurveTolerance() {
+		return curveTolerance;
+	}
+
+	/**
+	 * Sets the distance on a unit circle that new lines are fitted to curves within, 
+	 * 0 disables curve fitting.
+	 * @param curveTolerance The new curve tolerance
+	 */
+	public void setCurveTolerance(double curveTolerance) {
+		this.curveTolerance = curveTolerance;
+	}
+
+	/**
+	 * Checks whether new lines are fitted to curves.
+	 * @return true, if fit curves
+	 */
+	public boolean isFitCurves() {
+		return curveTolerance > 0;
+	}
+
+	/**
+	 * Sets whether to fit new lines to curves using the default tolerance.
+	 * @param fitCurves The new fit curves value
+	 */
+	public void setFitCurves(boolean fitCurves) {
+		this.curveTolerance = fitCurves ? DEFAULT_CURVE_TOLERANCE : 0;
+	}
+
 	@Override
 	public DoilySettings clone() {
-		return new DoilySettings(sectors, showSeparators, showRings, useImage, 
-				antiAlias, penScale, penColor, reflect, circleBounded, interpolate);
+		return new DoilySettings(sectors, showSeparators, showRings, useImage, antiAlias, 
+				renderMode, penScale, penColor, reflect, circleBounded, interpolate, decimationTolerance,
+				curveTolerance);
 	}
 
 }
@@ -1,7 +1,11 @@
+import java.io.IOException;
 import java.util.ArrayList;
 
 /**
- * DoilyState class. Holds the state of a doily.
+ * DoilyState class. Holds the state of a doily. Points of finished lines can be moved off the
+ * heap into a point store. The application never sets one, it is for callers building very
+ * large doilies. A store only grows, points of lines later removed stay in it until the 
+ * store is discarded, as copies of the doily may still view them.
  * 
  * Digital Doily - COMP1206 Coursework
  * @author David Jones [dsj1n15]
@@ -9,6 +13,8 @@ import java.util.ArrayList;
 public class DoilyState {
 	public DoilySettings settings;                          // DoilySettings object to use
 	public ArrayList<Line> lines;                           // Lines of current drawing
+	private PointStore pointStore;                          // Off-heap store for finished lines (null if none)
+	private Line openLine;                                  // Line still being drawn (null if none)
 
 	/**
 	 * Instantiates a new doily state using given settings and lines
@@ -20,13 +26,69 @@ public class DoilyState {
 		this.lines = lines;
 	}
 
+	/**
+	 * Gets the store that points of finished lines are moved to.
+	 * @return The point store, null if points are held on the heap
+	 */
+	public PointStore getPointStore() {
+		return pointStore;
+	}
+
+	/**
+	 * Sets the store that points of finished lines are moved to, moving the points of every
+	 * existing line to it. Lines already moved to another store are left in it.
+	 * @param pointStore The point store, null to hold points of new lines on the heap
+	 * @throws IOException Signals that an I/O exception has occurred
+	 * @throws IllegalStateException If a line is being drawn
+	 */
+	public void setPointStore(PointStore pointStore) throws IOException {
+		if (openLine != null) {
+			throw new IllegalStateException("Point store cannot be changed while a line is being drawn");
+		}
+		this.pointStore = pointStore;
+		if (pointStore != null) {
+			for (Line line : lines) {
+				line.moveTo(pointStore);
+			}
+		}
+	}
+
+	/**
+	 * Adds a line that points will be added to until it is stored. The point store cannot be
+	 * changed until then.
+	 * @param line The new line
+	 */
+	public void startLine(Line line) {
+		lines.add(line);
+		openLine = line;
+	}
+
+	/**
+	 * Moves the points of a finished line to the point store if one is set, ending the line
+	 * being drawn. If the store cannot be written to, the points stay on the heap.
+	 * @param line Line that will not have any more points added
+	 */
+	public void storeLine(Line line) {
+		openLine = null;
+		if (pointStore != null) {
+			try {
+				line.moveTo(pointStore);
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
 	@Override
 	public DoilyState clone() {	
 		ArrayList<Line> newLines = new ArrayList<Line>();
 		for (Line line : lines) {
 			newLines.add(line.clone());
 		}
-		return new DoilyState(settings.clone(), newLines);
+		DoilyState state = new DoilyState(settings.clone(), newLines);
+		// Stored lines share their points, so the copy shares the store
+		state.pointStore = pointStore;
+		return state;
 	}
 
 }
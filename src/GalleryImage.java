@@ -1,16 +1,11 @@
 import java.awt.Color;
-import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.Graphics;
 import java.awt.Image;
 import java.awt.event.InputEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.awt.image.BufferedImage;
-import java.io.File;
-import java.io.IOException;
 
-import javax.imageio.ImageIO;
 import javax.swing.BorderFactory;
 import javax.swing.JPanel;
 import javax.swing.SwingUtilities;
@@ -99,21 +94,6 @@ public class GalleryImage extends JPanel {
 		}
 	}
 
-	/**
-	 * Export stored doily image as a PNG.
-	 * @param path the path
-	 * @param d the dimension to export at
-	 */
-	public void export(String path, Dimension d) {
-		// Create thumbnail image
-		BufferedImage exportImage = new DoilyDrawer(doily).getDoilyImage(d);
-		try {
-			ImageIO.write(exportImage, "PNG", new File(path));
-		} catch (IOException e1) {
-			e1.printStackTrace();
-		}
-	}
-
 	/**
 	 * The listener interface for receiving selection events.
 	 * Inner class for GalleryImage.
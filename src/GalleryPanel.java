@@ -31,6 +31,7 @@ public class GalleryPanel extends JPanel {
 	int maxImgCount;                 // Maximum number of images that can be stored
 	double imgRatio;                 // Ratio of width to height
 	ArrayList<GalleryImage> images;  // Images that belong to the gallery
+	DoilyExporter exporter;          // Background exporter for gallery images
 
 	/**
 	 * Instantiates a new gallery panel.
@@ -49,6 +50,7 @@ public class GalleryPanel extends JPanel {
 		this.maxImgCount = maxImgCount;
 		this.imgRatio = imgRatio;
 		this.images = new ArrayList<GalleryImage>();
+		this.exporter = new DoilyExporter();
 
 		// Set layout so objects fill panel
 		this.setLayout(new GridLayout(1, 1));
@@ -131,6 +133,8 @@ public class GalleryPanel extends JPanel {
 	/**
 	 * Exports all selected images to respective files in an export folder.
 	 * Uses batch naming when appropriate (appends -# for each file).
+	 * Overwrite permission is asked for up front, images are then rendered and written
+	 * in the background.
 	 * @param filename The filename
 	 */
 	public void exportSelected(String filename) {
@@ -149,7 +153,9 @@ public class GalleryPanel extends JPanel {
 			batchNaming = false;
 		}
 
-		// Loop for all selected images
+		// Loop for all selected images, collecting those to export
+		ArrayList<DoilyState> doilies = new ArrayList<DoilyState>();
+		ArrayList<String> paths = new ArrayList<String>();
 		for (int i=0; i < selected.size(); i++) {
 			// Create appropriate path
 			String path;
@@ -183,12 +189,14 @@ public class GalleryPanel extends JPanel {
 			else {
 				export = true;
 			}
-			// Export image, creating path if required
+			// Queue a snapshot of the image for export
 			if (export) {
-				file.getParentFile().mkdirs();
-				selected.get(i).export(path, size);
+				doilies.add(selected.get(i).getDoily().clone());
+				paths.add(path);
 			}	
-		}		
+		}
+		// Export images in the background
+		exporter.export(this, doilies, paths, size);
 	}
 
 	/**
@@ -1,37 +1,107 @@
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Point;
-import java.util.ArrayList;
+import java.awt.geom.CubicCurve2D;
+import java.awt.geom.FlatteningPathIterator;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.util.Arrays;
 
 /**
- * Line class. Holds settings and points for a line.
+ * Line class. Holds settings and points for a line. Points are either joined by straight
+ * segments or, for curved lines, are the end and control points of cubic curves.
  * 
  * Digital Doily - COMP1206 Coursework
  * @author David Jones [dsj1n15]
  */
 public class Line {
+	// Point storage settings
+	private static final int INITIAL_CAPACITY = 16;       // Points held before storage first grows
+	private static final int STORE_WINDOW = 4096;         // Unit positions cached for stored lines
 	// Point capture settings
-	private static int DEFAULT_INTERPOLATION_RESOLUTION = 100000;
-	private static double DEFAULT_INTERPOLATION_SCALE_FACTOR = 0.05;
+	private static final double INTERPOLATION_SPACING = 0.05; // Largest scaled change between interpolated points
+	private static final int INTERPOLATION_MAX_POINTS = 1024; // Points added between a single pair of points
+	// Level of detail settings
+	private static final double DETAIL_TOLERANCE = 0.25;  // Maximum error of simplified paths in pixels
+	private static final int DETAIL_MIN_POINTS = 8;       // Lines with fewer points are never simplified
+	// Decimation settings
+	private static final int DECIMATION_MAX_DROPPED = 32; // Dropped points checked per new point
+	// Curve fitting settings
+	private static final int CURVE_MAX_SAMPLES = 64;      // Captured points a single curve is fitted to
+	private static final int CURVE_TANGENT_SPAN = 3;      // Captured points used to estimate a tangent
+	private static final int CURVE_REFITS = 3;            // Reparameterisations tried before splitting
 
 	// Line settings
 	private int scaleFactor;
 	private Color color;
 	private boolean reflect;
-	// Line points
-	public ArrayList<LinePoint> points;
+	private boolean curved;             // Whether points are the end and control points of curves
+	// Line points, scaled positions held in parallel arrays
+	private double[] orbitScales;       // Position of each point as a percentage of the radius
+	private double[] clockwiseScales;   // Position of each point as a percentage of the arc length
+	private int pointCount;             // Number of points held
+	private int replacedCount;          // Number of times a held point has been replaced
+	private PointStore store;           // Store holding points off the heap (null if held here)
+	private long storeStart;            // Index in the store of the first point
+	// Cached geometry, point positions on a unit circle for a given sector count
+	private int cachedSectors;          // Sector count of cached geometry (0 if none)
+	private int cachedStart;            // Index of the first point held in the cache
+	private int cachedCount;            // Number of points held in the cache
+	private float[] unitCoords;         // Interleaved x,y unit positions of points
+	private Path2D.Float unitPath;      // Path through cached unit positions (null if stale)
+	private int pathCount;              // Number of points in the cached path
+	private Path2D[] detailPaths;       // Simplified paths by level of detail (null if none)
+	private int[] detailCounts;         // Number of points each simplified path was built from
+	// Points dropped by decimation since the second to last point, as unit positions
+	private float[] droppedCoords = new float[DECIMATION_MAX_DROPPED*2];
+	private int droppedCount;
+	private int droppedSectors;         // Sector count dropped points were positioned with
+	private float[] decimationCoords = new float[6]; // Unit positions of segment and last point
+	// Positions of the points being interpolated between
+	private float[] interpolationCoords = new float[4];
+	private LinePoint interpolationPoint = new LinePoint(0, 0);
+	// Scaled points of a batch being added
+	private double[] batchOrbitScales;
+	private double[] batchClockwiseScales;
+	private LinePoint batchPoint = new LinePoint(0, 0);
+	private LinePoint batchLastPoint = new LinePoint(0, 0);
+	// Captured points the last curve is fitted to, as unit positions
+	private double[] samples;           // Interleaved x,y unit positions
+	private double[] sampleParams;      // Position of each captured point along the curve
+	private int sampleCount;            // Number of captured points
+	private int sampleSectors;          // Sector count captured points were positioned with
+	private int sampleAnchor;           // Index of the point the last curve starts at
+	// Scratch space for fitting curves, reused for every captured point (null until fitted)
+	private float[] pointUnit;          // Unit position of the point being fitted
+	private float[] anchorUnit;         // Unit position of the point a curve starts at
+	private float[] tangentUnits;       // Unit positions of the points a tangent joins
+	private double[] fitTangents;       // Start and end tangents of the fitted curve
+	private double[] fittedCurve;       // Fitted curve as {x0, y0, x1, y1, x2, y2, x3, y3}
+	private LinePoint fitFirst;         // First control point of the fitted curve
+	private LinePoint fitSecond;        // Second control point of the fitted curve
+	// Cached polar extent of points
+	private int boundsCount;            // Number of points included in the extent
+	private double minOrbit;            // Closest point to the centre
+	private double maxOrbit;            // Furthest point from the centre
+	private double minClockwise;        // Lowest clockwise position
+	private double maxClockwise;        // Highest clockwise position
 
 	/**
 	 * Instantiates a new line with given settings.
 	 * @param scaleFactor The pen scale factor
 	 * @param colour The pen colour
 	 * @param reflect Whether to reflect
+	 * @param curved Whether to fit points to curves
 	 */
-	public Line(int scaleFactor, Color color, boolean reflect) {
+	public Line(int scaleFactor, Color color, boolean reflect, boolean curved) {
 		this.scaleFactor = scaleFactor;
 		this.color = color;
 		this.reflect = reflect;
-		points = new ArrayList<LinePoint>();
+		this.curved = curved;
+		orbitScales = new double[INITIAL_CAPACITY];
+		clockwiseScales = new double[INITIAL_CAPACITY];
 	}
 
 	/**
@@ -83,17 +153,180 @@ public class Line {
 	}
 
 	/**
-	 * Adds an absolute point to a given line as a scaled point.
+	 * Checks if points are fitted to curves.
+	 * @return true, if curved
+	 */
+	public boolean isCurved() {
+		return curved;
+	}
+
+	/**
+	 * Gets the number of points each segment adds to the line, the two control points and 
+	 * end point of a curve or the end point of a straight segment.
+	 * @return The points per segment
+	 */
+	public int getPointsPerSegment() {
+		return curved ? 3 : 1;
+	}
+
+	/**
+	 * Gets the number of points.
+	 * @return The number of points
+	 */
+	public synchronized int getPointCount() {
+		return pointCount;
+	}
+
+	/**
+	 * Gets the orbit scale of a point.
+	 * @param index Index of the point
+	 * @return The orbit scale
+	 */
+	public synchronized double getOrbitScale(int index) {
+		checkIndex(index);
+		return orbitAt(index);
+	}
+
+	/**
+	 * Gets the clockwise scale of a point.
+	 * @param index Index of the point
+	 * @return The clockwise scale
+	 */
+	public synchronized double getClockwiseScale(int index) {
+		checkIndex(index);
+		return clockwiseAt(index);
+	}
+
+	/**
+	 * Gets a copy of a point, changing it does not change the line.
+	 * @param index Index of the point
+	 * @return The point
+	 */
+	public synchronized LinePoint getPoint(int index) {
+		checkIndex(index);
+		return new LinePoint(orbitAt(index), clockwiseAt(index));
+	}
+
+	/**
+	 * Gets the number of times a point has been replaced since the line was created. Points
+	 * are only ever replaced at the end of the line, by decimation or curve fitting.
+	 * @return The replaced count
+	 */
+	public synchronized int getReplacedCount() {
+		return replacedCount;
+	}
+
+	/**
+	 * Gets whether points are held off the heap in a point store.
+	 * @return true, if stored
+	 */
+	public synchronized boolean isStored() {
+		return store != null;
+	}
+
+	/**
+	 * Move all points to the end of a point store, leaving the line as a read-only view 
+	 * over them. Full resolution geometry is no longer cached, only a window of unit positions 
+	 * around the points last used, so heap usage does not grow with the number of points. 
+	 * Lines that are already stored are left unchanged.
+	 * @param store Store to move points to
+	 * @throws IOException Signals that an I/O exception has occurred
+	 */
+	public synchronized void moveTo(PointStore store) throws IOException {
+		if (this.store != null) {
+			return;
+		}
+		storeStart = store.append(orbitScales, clockwiseScales, pointCount);
+		this.store = store;
+		orbitScales = null;
+		clockwiseScales = null;
+		droppedCount = 0;
+		samples = null;
+		sampleParams = null;
+		sampleCount = 0;
+		// Discard full resolution geometry, simplified paths are already compact
+		unitCoords = null;
+		cachedStart = 0;
+		cachedCount = 0;
+		unitPath = null;
+		pathCount = 0;
+	}
+
+	/**
+	 * Gets the orbit scale of a point without checking it exists.
+	 * @param index Index of the point
+	 * @return The orbit scale
+	 */
+	private double orbitAt(int index) {
+		return (store == null) ? orbitScales[index] : store.getOrbitScale(storeStart + index);
+	}
+
+	/**
+	 * Gets the clockwise scale of a point without checking it exists.
+	 * @param index Index of the point
+	 * @return The clockwise scale
+	 */
+	private double clockwiseAt(int index) {
+		return (store == null) ? clockwiseScales[index] : store.getClockwiseScale(storeStart + index);
+	}
+
+	/**
+	 * Check that a point exists.
+	 * @param index Index of the point
+	 */
+	private void checkIndex(int index) {
+		if (index < 0 || index >= pointCount) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Points: " + pointCount);
+		}
+	}
+
+	/**
+	 * Append a scaled point, growing storage if full.
+	 * @param point Point to append
+	 */
+	private void addScaledPoint(LinePoint point) {
+		if (pointCount == orbitScales.length) {
+			int capacity = Math.max(orbitScales.length*2, INITIAL_CAPACITY);
+			orbitScales = Arrays.copyOf(orbitScales, capacity);
+			clockwiseScales = Arrays.copyOf(clockwiseScales, capacity);
+		}
+		orbitScales[pointCount] = point.getOrbitScale();
+		clockwiseScales[pointCount] = point.getClockwiseScale();
+		pointCount++;
+	}
+
+	/**
+	 * Replace a held point with a scaled point.
+	 * @param index Index of the point to replace
+	 * @param point New point
+	 */
+	private void setScaledPoint(int index, LinePoint point) {
+		orbitScales[index] = point.getOrbitScale();
+		clockwiseScales[index] = point.getClockwiseScale();
+		replacedCount++;
+	}
+
+	/**
+	 * Adds an absolute point to a given line as a scaled point. If decimation is enabled the
+	 * last point may be replaced by the new point instead. Curved lines fit the point to the 
+	 * last curve, or start a new curve, using the curve tolerance instead of decimation.
 	 * @param point Point to add
 	 * @param d Dimension to scale point to
 	 * @param settings The settings to enforce
+	 * @return Index of the first point of the earliest segment that changed
+	 * @throws IllegalStateException If the points are held in a point store
 	 */
-	public void addPoint(Point point, Dimension d, DoilySettings settings) {
+	public synchronized int addPoint(Point point, Dimension d, DoilySettings settings) {
+		if (store != null) {
+			throw new IllegalStateException("Points of a stored line cannot be changed");
+		}
 		// Check for existing points in line
+		int count = pointCount;
+		int replaced = replacedCount;
 		LinePoint lastPoint = null;
-		if (points.size() > 0) {
+		if (count > 0) {
 			// Modify clockwise scaling to take into account wrapping around full circle
-			lastPoint = points.get(points.size()-1);
+			lastPoint = getPoint(count-1);
 		}		
 		// Find scaled point
 		LinePoint newPoint = LinePoint.scalePoint(point, d, settings, lastPoint);	
@@ -104,15 +337,411 @@ public class Line {
 		}
 		// Add scaled point
 		if (newPoint != null) {
-			points.add(newPoint);
+			capturePoint(newPoint, settings);
 		}		
+		return getChangedFrom(count, replaced);
+	}
+
+	/**
+	 * Adds a batch of absolute points to the line as scaled points, with the same result as 
+	 * adding each in turn with addPoint. The points are scaled together, finding the 
+	 * constraints on them only once and without creating objects for them.
+	 * @param coords Points centred around [0,0] stored interleaved as x,y pairs
+	 * @param count Number of points to add
+	 * @param d Dimension to scale points to
+	 * @param settings The settings to enforce
+	 * @return Index of the first point of the earliest segment that changed
+	 * @throws IllegalStateException If the points are held in a point store
+	 */
+	public synchronized int addPoints(int[] coords, int count, Dimension d, DoilySettings settings) {
+		if (store != null) {
+			throw new IllegalStateException("Points of a stored line cannot be changed");
+		}
+		int first = pointCount;
+		int replaced = replacedCount;
+		if (batchOrbitScales == null || batchOrbitScales.length < count) {
+			batchOrbitScales = new double[count];
+			batchClockwiseScales = new double[count];
+		}
+		// Scale points, wrapping the first to follow the last point of the line
+		double lastClockwise = (first > 0) ? clockwiseScales[first-1] : Double.NaN;
+		int scaled = LinePoint.scalePoints(coords, count, new LinePoint.ScaleConstraints(d, settings), 
+				lastClockwise, batchOrbitScales, batchClockwiseScales, 0);
+		for (int i=0; i < scaled; i++) {
+			batchPoint.setOrbitScale(batchOrbitScales[i]);
+			batchPoint.setClockwiseScale(batchClockwiseScales[i]);
+			// Handle interpolation for sector change smoothing
+			if (settings.isInterpolate() && pointCount > 0) {
+				batchLastPoint.setOrbitScale(orbitScales[pointCount-1]);
+				batchLastPoint.setClockwiseScale(clockwiseScales[pointCount-1]);
+				interpolateBetweenPoints(batchLastPoint, batchPoint, settings);
+			}
+			capturePoint(batchPoint, settings);
+		}
+		return getChangedFrom(first, replaced);
+	}
+
+	/**
+	 * Gets the first point of the earliest segment changed since the line had a given number 
+	 * of points. Replacing the last point changes the segment leading to it.
+	 * @param count Number of points before the change
+	 * @param replaced Replaced count before the change
+	 * @return Index of the first point of the earliest segment that changed
+	 */
+	private int getChangedFrom(int count, int replaced) {
+		int step = getPointsPerSegment();
+		if (count > step && replacedCount != replaced) {
+			return count-1-step;
+		}
+		return Math.max(count-1, 0);
+	}
+
+	/**
+	 * Add a captured scaled point, fitting it to a curve or decimating it as the line requires.
+	 * The point is not kept so may be reused by the caller.
+	 * @param point Point to add
+	 * @param settings The settings to enforce
+	 */
+	private void capturePoint(LinePoint point, DoilySettings settings) {
+		if (curved) {
+			fitPoint(point, settings.getSectors(), settings.getCurveTolerance());
+		}
+		else {
+			appendPoint(point, settings.getSectors(), settings.getDecimationTolerance());
+		}
+	}
+
+	/**
+	 * Append a scaled point, replacing the last point if it and every point dropped before
+	 * it are within a tolerance of the segment from the second to last point to the new point.
+	 * The tolerance is measured between positions on a unit circle, as the segment is drawn,
+	 * so no point ever captured is further than it from the line. Only a bounded number of 
+	 * dropped points are checked.
+	 * @param point Point to append
+	 * @param sectors Number of sectors the point was captured with
+	 * @param tolerance Distance on a unit circle within which points are dropped (0 to keep 
+	 * all points)
+	 */
+	private void appendPoint(LinePoint point, int sectors, double tolerance) {
+		int count = pointCount;
+		double orbit = point.getOrbitScale();
+		double clockwise = point.getClockwiseScale();
+		if (tolerance > 0 && count > 0) {
+			double lastOrbit = orbitScales[count-1];
+			double lastClockwise = clockwiseScales[count-1];
+			// Repeated point adds nothing
+			if (lastOrbit == orbit && lastClockwise == clockwise) {
+				return;
+			}
+			// Dropped points positioned with another sector count cannot be checked
+			if (count > 1 && droppedCount < DECIMATION_MAX_DROPPED 
+					&& (droppedCount == 0 || sectors == droppedSectors)) {
+				float[] coords = decimationCoords;
+				double sectorAngle = DoilyUtilities.getSectorAngle(sectors);
+				LinePoint.getUnitPosition(orbitScales[count-2], clockwiseScales[count-2], 
+						sectorAngle, coords, 0);
+				LinePoint.getUnitPosition(orbit, clockwise, sectorAngle, coords, 2);
+				LinePoint.getUnitPosition(lastOrbit, lastClockwise, sectorAngle, coords, 4);
+				double toleranceSq = tolerance*tolerance;
+				boolean within = getSegmentDistanceSq(coords[4], coords[5], coords[0], coords[1], 
+						coords[2], coords[3]) <= toleranceSq;
+				for (int i=0; within && i < droppedCount; i++) {
+					within = getSegmentDistanceSq(droppedCoords[i*2], droppedCoords[i*2+1], 
+							coords[0], coords[1], coords[2], coords[3]) <= toleranceSq;
+				}
+				if (within) {
+					droppedCoords[droppedCount*2] = coords[4];
+					droppedCoords[droppedCount*2+1] = coords[5];
+					droppedCount++;
+					droppedSectors = sectors;
+					setScaledPoint(count-1, point);
+					invalidateFrom(count-1);
+					return;
+				}
+			}
+		}
+		droppedCount = 0;
+		addScaledPoint(point);
+	}
+
+	/**
+	 * Append a scaled point as the end of a cubic curve. The last curve is refitted to every
+	 * point captured since it started while it stays within a tolerance of all of them, 
+	 * otherwise a new curve is started from its end, leaving in the same direction.
+	 * Only a bounded number of captured points are fitted to a single curve.
+	 * @param point Point to append
+	 * @param sectors Number of sectors the point was captured with
+	 * @param tolerance Distance on a unit circle within which curves must pass captured points
+	 */
+	private void fitPoint(LinePoint point, int sectors, double tolerance) {
+		if (pointCount == 0) {
+			addScaledPoint(point);
+			startCurve(sectors);
+			return;
+		}
+		if (sectors != sampleSectors || sampleCount == 0) {
+			startCurve(sectors);
+		}
+		float[] unit = pointUnit;
+		LinePoint.getUnitPosition(point.getOrbitScale(), point.getClockwiseScale(), 
+				DoilyUtilities.getSectorAngle(sectors), unit, 0);
+		// Repeated point adds nothing
+		if (unit[0] == samples[sampleCount*2-2] && unit[1] == samples[sampleCount*2-1]) {
+			return;
+		}
+		double[] curve = fittedCurve;
+		if (sampleCount < CURVE_MAX_SAMPLES) {
+			samples[sampleCount*2] = unit[0];
+			samples[sampleCount*2+1] = unit[1];
+			sampleCount++;
+			if (fitCurve(tolerance, curve)) {
+				setCurve(point, curve, sectors);
+				return;
+			}
+		}
+		// Start a new curve from the end of the last, any two points can be joined
+		startCurve(sectors);
+		samples[2] = unit[0];
+		samples[3] = unit[1];
+		sampleCount = 2;
+		fitCurve(Double.POSITIVE_INFINITY, curve);
+		setCurve(point, curve, sectors);
+	}
+
+	/**
+	 * Start fitting a new curve from the last point.
+	 * @param sectors Number of sectors to position captured points with
+	 */
+	private void startCurve(int sectors) {
+		if (samples == null) {
+			samples = new double[CURVE_MAX_SAMPLES*2];
+			sampleParams = new double[CURVE_MAX_SAMPLES];
+			pointUnit = new float[2];
+			anchorUnit = new float[2];
+			tangentUnits = new float[4];
+			fitTangents = new double[4];
+			fittedCurve = new double[8];
+			fitFirst = new LinePoint(0, 0);
+			fitSecond = new LinePoint(0, 0);
+		}
+		sampleAnchor = pointCount-1;
+		sampleSectors = sectors;
+		float[] unit = anchorUnit;
+		LinePoint.getUnitPosition(orbitScales[sampleAnchor], clockwiseScales[sampleAnchor], 
+				DoilyUtilities.getSectorAngle(sectors), unit, 0);
+		samples[0] = unit[0];
+		samples[1] = unit[1];
+		sampleCount = 1;
+	}
+
+	/**
+	 * Store a fitted curve ending at a point, replacing the last curve if it was fitted to
+	 * the same captured points.
+	 * @param point End point of the curve
+	 * @param curve Unit positions of the curve as {x0, y0, x1, y1, x2, y2, x3, y3}
+	 * @param sectors Number of sectors the curve was fitted with
+	 */
+	private void setCurve(LinePoint point, double[] curve, int sectors) {
+		LinePoint first = toScaledPoint(curve[2], curve[3], clockwiseScales[sampleAnchor], sectors, 
+				fitFirst);
+		LinePoint second = toScaledPoint(curve[4], curve[5], point.getClockwiseScale(), sectors, 
+				fitSecond);
+		if (pointCount > sampleAnchor+1) {
+			setScaledPoint(sampleAnchor+1, first);
+			setScaledPoint(sampleAnchor+2, second);
+			setScaledPoint(sampleAnchor+3, point);
+			invalidateFrom(sampleAnchor+1);
+		}
+		else {
+			addScaledPoint(first);
+			addScaledPoint(second);
+			addScaledPoint(point);
+		}
+	}
+
+	/**
+	 * Convert a position on a unit circle to a scaled point, wrapped to be the closest 
+	 * to a reference clockwise position.
+	 * @param x X position
+	 * @param y Y position
+	 * @param reference Clockwise position to wrap around
+	 * @param sectors Number of sectors to position point with
+	 * @param out Point to store the scaled point in
+	 * @return The scaled point, out
+	 */
+	private static LinePoint toScaledPoint(double x, double y, double reference, int sectors, 
+			LinePoint out) {
+		double clockwise = Math.atan2(x, -y)/DoilyUtilities.getSectorAngle(sectors);
+		clockwise += sectors*Math.rint((reference - clockwise)/sectors);
+		out.setOrbitScale(Math.hypot(x, y));
+		out.setClockwiseScale(clockwise);
+		return out;
+	}
+
+	/**
+	 * Fit a cubic curve through the first and last captured points that passes close to the
+	 * points between. Control points are found by least squares along tangents at either end,
+	 * reparameterising a few times if the curve is close to the tolerance.
+	 * @param tolerance Maximum distance of any captured point from the curve
+	 * @param curve Array to store the curve in as {x0, y0, x1, y1, x2, y2, x3, y3}
+	 * @return true, if within tolerance
+	 */
+	private boolean fitCurve(double tolerance, double[] curve) {
+		int last = sampleCount-1;
+		// Start tangent follows on from the previous curve if there is one
+		double[] tangents = fitTangents;
+		boolean joined = false;
+		if (sampleAnchor > 0) {
+			float[] unit = tangentUnits;
+			double sectorAngle = DoilyUtilities.getSectorAngle(sampleSectors);
+			LinePoint.getUnitPosition(orbitScales[sampleAnchor-1], clockwiseScales[sampleAnchor-1], 
+					sectorAngle, unit, 0);
+			LinePoint.getUnitPosition(orbitScales[sampleAnchor], clockwiseScales[sampleAnchor], 
+					sectorAngle, unit, 2);
+			joined = setTangent(tangents, 0, unit[2] - unit[0], unit[3] - unit[1]);
+		}
+		int span = Math.min(CURVE_TANGENT_SPAN, last);
+		if (!joined) {
+			setTangent(tangents, 0, samples[span*2] - samples[0], samples[span*2+1] - samples[1]);
+		}
+		setTangent(tangents, 2, samples[(last-span)*2] - samples[last*2], 
+				samples[(last-span)*2+1] - samples[last*2+1]);
+		// Parameterise by distance along captured points
+		sampleParams[0] = 0;
+		for (int i=1; i <= last; i++) {
+			sampleParams[i] = sampleParams[i-1] + Math.hypot(samples[i*2] - samples[i*2-2], 
+					samples[i*2+1] - samples[i*2-1]);
+		}
+		double length = sampleParams[last];
+		for (int i=1; i <= last; i++) {
+			sampleParams[i] /= length;
+		}
+		curve[0] = samples[0];
+		curve[1] = samples[1];
+		curve[6] = samples[last*2];
+		curve[7] = samples[last*2+1];
+		double toleranceSq = tolerance*tolerance;
+		for (int i=0; ; i++) {
+			setControlPoints(curve, tangents, length);
+			double errorSq = 0;
+			for (int j=1; j < last; j++) {
+				double u = sampleParams[j];
+				double x = getCurvePosition(curve, 0, u) - samples[j*2];
+				double y = getCurvePosition(curve, 1, u) - samples[j*2+1];
+				errorSq = Math.max(errorSq, x*x + y*y);
+			}
+			if (errorSq <= toleranceSq) {
+				return true;
+			}
+			// Reparameterising only helps curves that are already close
+			if (i == CURVE_REFITS || errorSq > toleranceSq*16) {
+				return false;
+			}
+			reparameterise(curve);
+		}
+	}
+
+	/**
+	 * Store a normalised tangent.
+	 * @param tangents Array to store tangent in
+	 * @param offset Index of tangents to store the x direction at, y is stored after it
+	 * @param x X direction
+	 * @param y Y direction
+	 * @return true, if the direction had a length
+	 */
+	private static boolean setTangent(double[] tangents, int offset, double x, double y) {
+		double length = Math.hypot(x, y);
+		if (length == 0) {
+			tangents[offset] = 0;
+			tangents[offset+1] = 0;
+			return false;
+		}
+		tangents[offset] = x/length;
+		tangents[offset+1] = y/length;
+		return true;
+	}
+
+	/**
+	 * Find the control points along given tangents of a curve that best fit captured points
+	 * at their current parameters, in the least squares sense.
+	 * @param curve Curve with end points set, control points are stored into it
+	 * @param tangents Start tangent and end tangent (pointing back along the curve)
+	 * @param length Distance along captured points
+	 */
+	private void setControlPoints(double[] curve, double[] tangents, double length) {
+		double c00 = 0, c01 = 0, c11 = 0, x0 = 0, x1 = 0;
+		for (int i=0; i < sampleCount; i++) {
+			double u = sampleParams[i];
+			double v = 1 - u;
+			double b0 = v*v*v, b1 = 3*u*v*v, b2 = 3*u*u*v, b3 = u*u*u;
+			double a1x = tangents[0]*b1, a1y = tangents[1]*b1;
+			double a2x = tangents[2]*b2, a2y = tangents[3]*b2;
+			double rx = samples[i*2] - (curve[0]*(b0 + b1) + curve[6]*(b2 + b3));
+			double ry = samples[i*2+1] - (curve[1]*(b0 + b1) + curve[7]*(b2 + b3));
+			c00 += a1x*a1x + a1y*a1y;
+			c01 += a1x*a2x + a1y*a2y;
+			c11 += a2x*a2x + a2y*a2y;
+			x0 += a1x*rx + a1y*ry;
+			x1 += a2x*rx + a2y*ry;
+		}
+		double det = c00*c11 - c01*c01;
+		double chord = Math.hypot(curve[6] - curve[0], curve[7] - curve[1]);
+		double alpha1 = (det == 0) ? 0 : (x0*c11 - x1*c01)/det;
+		double alpha2 = (det == 0) ? 0 : (c00*x1 - c01*x0)/det;
+		// Fall back to a third of the chord if the fit is degenerate or leaves the captured points
+		double epsilon = chord*1e-6;
+		if (alpha1 < epsilon || alpha2 < epsilon || alpha1 > length || alpha2 > length) {
+			alpha1 = alpha2 = chord/3;
+		}
+		curve[2] = curve[0] + tangents[0]*alpha1;
+		curve[3] = curve[1] + tangents[1]*alpha1;
+		curve[4] = curve[6] + tangents[2]*alpha2;
+		curve[5] = curve[7] + tangents[3]*alpha2;
+	}
+
+	/**
+	 * Move the parameter of every captured point to the closest position on a curve, 
+	 * using a single Newton-Raphson step.
+	 * @param curve The fitted curve
+	 */
+	private void reparameterise(double[] curve) {
+		for (int i=1; i < sampleCount-1; i++) {
+			double u = sampleParams[i];
+			double v = 1 - u;
+			double dx = getCurvePosition(curve, 0, u) - samples[i*2];
+			double dy = getCurvePosition(curve, 1, u) - samples[i*2+1];
+			// First and second derivatives of the curve
+			double d1x = 3*((curve[2] - curve[0])*v*v + 2*(curve[4] - curve[2])*u*v + (curve[6] - curve[4])*u*u);
+			double d1y = 3*((curve[3] - curve[1])*v*v + 2*(curve[5] - curve[3])*u*v + (curve[7] - curve[5])*u*u);
+			double d2x = 6*((curve[4] - 2*curve[2] + curve[0])*v + (curve[6] - 2*curve[4] + curve[2])*u);
+			double d2y = 6*((curve[5] - 2*curve[3] + curve[1])*v + (curve[7] - 2*curve[5] + curve[3])*u);
+			double denominator = d1x*d1x + d1y*d1y + dx*d2x + dy*d2y;
+			if (denominator != 0) {
+				sampleParams[i] = Math.max(0, Math.min(1, u - (dx*d1x + dy*d1y)/denominator));
+			}
+		}
+	}
+
+	/**
+	 * Find a coordinate of a position on a cubic curve.
+	 * @param curve Curve as {x0, y0, x1, y1, x2, y2, x3, y3}
+	 * @param axis 0 for the x coordinate, 1 for the y coordinate
+	 * @param u Parameter of the position (0 to 1)
+	 * @return The coordinate
+	 */
+	private static double getCurvePosition(double[] curve, int axis, double u) {
+		double v = 1 - u;
+		return curve[axis]*v*v*v + 3*curve[axis+2]*u*v*v + 3*curve[axis+4]*u*u*v + curve[axis+6]*u*u*u;
 	}
 
 	/**
 	 * Use interpolation to add extra points between points in case of large jumps. 
-	 * This can be used to improve smoothness when reducing sector count. This function will be
-	 * called recursively until distance between reaches target. A fixed plane is used
-	 * so panel sizes do not affect number of points drawn.
+	 * This can be used to improve smoothness when reducing sector count. Points are spaced
+	 * evenly along the straight path between the points, with the number of points found so 
+	 * that neither scaled position changes by more than a fixed amount between them. The orbit 
+	 * changes no faster than the position, and the clockwise position no faster than the 
+	 * position over the arc length of a sector at the closest orbit of the path.
+	 * Positions are found on a unit circle so panel sizes do not affect number of points drawn.
 	 * @param start The point to interpolate from (not null)
 	 * @param end The point to interpolate to (not null)
 	 * @param settings The settings to enforce
@@ -122,41 +751,475 @@ public class Line {
 		if (start == null || end == null) {
 			return;
 		}
+		int sectors = settings.getSectors();
+		double sectorAngle = DoilyUtilities.getSectorAngle(sectors);
+
+		// Recreate points on a unit circle
+		LinePoint.getUnitPosition(start.getOrbitScale(), start.getClockwiseScale(), sectorAngle, 
+				interpolationCoords, 0);
+		LinePoint.getUnitPosition(end.getOrbitScale(), end.getClockwiseScale(), sectorAngle, 
+				interpolationCoords, 2);
+		double x = interpolationCoords[0];
+		double y = interpolationCoords[1];
+		double dx = interpolationCoords[2] - x;
+		double dy = interpolationCoords[3] - y;
+		double lengthSq = dx*dx + dy*dy;
+		if (lengthSq == 0) {
+			return;
+		}
+		// Find number of points from the closest orbit of the path
+		double t = Math.max(0, Math.min(1, -(x*dx + y*dy)/lengthSq));
+		double closest = Math.hypot(x + t*dx, y + t*dy);
+		double spacing = INTERPOLATION_SPACING*Math.min(1, closest*sectorAngle);
+		double divisions = Math.ceil(Math.sqrt(lengthSq)/spacing);
+		int points = (int) Math.min(divisions - 1, INTERPOLATION_MAX_POINTS);
+
+		// Add each point, keeping clockwise position within half a turn of the last
+		double clockwise = start.getClockwiseScale();
+		for (int i=1; i <= points; i++) {
+			double px = x + dx*i/(points+1);
+			double py = y + dy*i/(points+1);
+			double angle = Math.atan2(px, -py)/sectorAngle;
+			clockwise = angle + sectors*Math.rint((clockwise - angle)/sectors);
+			interpolationPoint.setOrbitScale(Math.sqrt(px*px + py*py));
+			interpolationPoint.setClockwiseScale(clockwise);
+			capturePoint(interpolationPoint, settings);
+		}
+	}
+
+	/**
+	 * Gets a path through all points positioned on a unit circle centred around [0,0].
+	 * Positions are cached, so only points appended since the last call, or all points if 
+	 * the sector count has changed, require conversion. Scaling the path by the doily radius
+	 * gives the line at any display size. The returned path is shared and must not be modified.
+	 * Stored lines build a new path on every call instead of keeping one.
+	 * @param sectors Number of sectors to position points with
+	 * @return The unit path
+	 */
+	public synchronized Path2D getUnitPath(int sectors) {
+		if (store != null) {
+			return getUnitPath(sectors, 0);
+		}
+		updateUnitCache(sectors);
+		// Extend path with new points, or rebuild it if it is stale
+		int count = pointCount;
+		int pathStart = pathCount;
+		if (unitPath == null) {
+			unitPath = new Path2D.Float(Path2D.WIND_NON_ZERO, Math.max(count, 1));
+			pathStart = 0;
+		}
+		appendUnitPath(unitPath, sectors, pathStart, count);
+		pathCount = count;
+		return unitPath;
+	}
+
+	/**
+	 * Gets a new path through the points from a given index positioned on a unit circle 
+	 * centred around [0,0].
+	 * @param sectors Number of sectors to position points with
+	 * @param start Index of the first point in the path
+	 * @return The unit path
+	 */
+	public synchronized Path2D getUnitPath(int sectors, int start) {
+		int count = pointCount;
+		Path2D path = new Path2D.Float(Path2D.WIND_NON_ZERO, Math.max(count-start, 1));
+		appendUnitPath(path, sectors, start, count);
+		return path;
+	}
+
+	/**
+	 * Gets a path through the points positioned on a unit circle centred around [0,0], 
+	 * simplified for drawing at a given radius. Points are removed using Douglas-Peucker 
+	 * simplification so that the path never moves by more than a fraction of a pixel when 
+	 * scaled by the radius. Radii are grouped into levels of detail by power of two, with 
+	 * the simplified path of each level cached until points are added. Curved lines are 
+	 * already compact so are never simplified. Stored lines are simplified a window of points
+	 * at a time, keeping the point at the end of every window.
+	 * The returned path is shared and must not be modified.
+	 * @param sectors Number of sectors to position points with
+	 * @param radius The absolute radius the path will be drawn at
+	 * @return The simplified unit path
+	 */
+	public synchronized Path2D getDetailPath(int sectors, int radius) {
+		if (curved || radius <= 0 || pointCount < DETAIL_MIN_POINTS) {
+			return getUnitPath(sectors);
+		}
+		updateUnitCache(sectors, 0, 0);
+		// Tolerance of level is between half and all of the maximum error at any radius within it
+		int level = 31 - Integer.numberOfLeadingZeros(radius);
+		int count = pointCount;
+		if (detailPaths == null) {
+			detailPaths = new Path2D[32];
+			detailCounts = new int[32];
+		}
+		if (detailPaths[level] == null || detailCounts[level] != count) {
+			double tolerance = DETAIL_TOLERANCE/(1L << (level+1));
+			Path2D path = new Path2D.Float(Path2D.WIND_NON_ZERO);
+			int window = (store == null) ? count : STORE_WINDOW;
+			for (int start=0; start < count-1; start += window-1) {
+				int end = Math.min(start + window, count);
+				updateUnitCache(sectors, start, end);
+				appendSimplifiedPath(path, start, end, tolerance);
+			}
+			detailPaths[level] = path;
+			detailCounts[level] = count;
+		}
+		return detailPaths[level];
+	}
+
+	/**
+	 * Append a range of cached unit positions to a path with points removed that are within 
+	 * a tolerance of the path without them. The first position is only moved to if the path 
+	 * is empty, otherwise it is expected to be the current point.
+	 * @param path Path to append to
+	 * @param first Index of the first point to include
+	 * @param last Index after the last point to include
+	 * @param tolerance Maximum distance of a removed point from the path
+	 */
+	private void appendSimplifiedPath(Path2D path, int first, int last, double tolerance) {
+		// Mark points to keep, splitting ranges at their furthest point until within tolerance
+		int count = last - first;
+		boolean[] keep = new boolean[count];
+		keep[0] = true;
+		keep[count-1] = true;
+		int[] stack = new int[count*2];
+		int size = 0;
+		stack[size++] = first;
+		stack[size++] = last-1;
+		double toleranceSq = tolerance*tolerance;
+		while (size > 0) {
+			int end = stack[--size];
+			int start = stack[--size];
+			int furthest = -1;
+			double furthestSq = toleranceSq;
+			for (int i=start+1; i < end; i++) {
+				double distanceSq = getSegmentDistanceSq(getUnitX(i), getUnitY(i), start, end);
+				if (distanceSq > furthestSq) {
+					furthest = i;
+					furthestSq = distanceSq;
+				}
+			}
+			if (furthest >= 0) {
+				keep[furthest-first] = true;
+				stack[size++] = start;
+				stack[size++] = furthest;
+				stack[size++] = furthest;
+				stack[size++] = end;
+			}
+		}
+		// Append path through kept points
+		if (path.getCurrentPoint() == null) {
+			path.moveTo(getUnitX(first), getUnitY(first));
+		}
+		for (int i=1; i < count; i++) {
+			if (keep[i]) {
+				path.lineTo(getUnitX(first+i), getUnitY(first+i));
+			}
+		}
+	}
+
+	/**
+	 * Find the squared distance of a unit position from the segment between two cached 
+	 * unit positions.
+	 * @param x X position
+	 * @param y Y position
+	 * @param start Index of segment start
+	 * @param end Index of segment end
+	 * @return The squared distance
+	 */
+	private double getSegmentDistanceSq(double x, double y, int start, int end) {
+		return getSegmentDistanceSq(x, y, getUnitX(start), getUnitY(start), getUnitX(end), getUnitY(end));
+	}
+
+	/**
+	 * Gets the cached unit x position of a point.
+	 * @param index Index of the point
+	 * @return The x position
+	 */
+	private float getUnitX(int index) {
+		return unitCoords[(index-cachedStart)*2];
+	}
+
+	/**
+	 * Gets the cached unit y position of a point.
+	 * @param index Index of the point
+	 * @return The y position
+	 */
+	private float getUnitY(int index) {
+		return unitCoords[(index-cachedStart)*2+1];
+	}
+
+	/**
+	 * Find the squared distance of a position from a segment.
+	 * @param x X position
+	 * @param y Y position
+	 * @param x1 X position of segment start
+	 * @param y1 Y position of segment start
+	 * @param x2 X position of segment end
+	 * @param y2 Y position of segment end
+	 * @return The squared distance
+	 */
+	private static double getSegmentDistanceSq(double x, double y, double x1, double y1, 
+			double x2, double y2) {
+		double dx = x2 - x1;
+		double dy = y2 - y1;
+		double lengthSq = dx*dx + dy*dy;
+		double t = (lengthSq == 0) ? 0 : Math.max(0, Math.min(1, ((x - x1)*dx + (y - y1)*dy)/lengthSq));
+		double px = x1 + t*dx - x;
+		double py = y1 + t*dy - y;
+		return px*px + py*py;
+	}
+
+	/**
+	 * Gets the bounds of the points from a given index positioned on a unit circle 
+	 * centred around [0,0].
+	 * @param sectors Number of sectors to position points with
+	 * @param start Index of the first point to include
+	 * @return The unit bounds, null if there are no points to include
+	 */
+	public synchronized Rectangle2D getUnitBounds(int sectors, int start) {
+		int count = pointCount;
+		if (start >= count) {
+			return null;
+		}
+		updateUnitCache(sectors, start, start+1);
+		Rectangle2D bounds = new Rectangle2D.Float(getUnitX(start), getUnitY(start), 0, 0);
+		for (int i=start+1; i < count; i++) {
+			updateUnitCache(sectors, i, i+1);
+			bounds.add(getUnitX(i), getUnitY(i));
+		}
+		return bounds;
+	}
+
+	/**
+	 * Gets the polar extent of all points, including segments passing closer to the centre 
+	 * than their points. The extent is cached so only points appended since the last call,
+	 * or all points if the sector count has changed, need to be checked.
+	 * @param sectors Number of sectors to position points with
+	 * @return The polar region of the line, null if it has no points
+	 */
+	public synchronized PolarRegion getPolarRegion(int sectors) {
+		updateUnitCache(sectors, 0, 0);
+		int count = pointCount;
+		if (count == 0) {
+			return null;
+		}
+		if (boundsCount == 0) {
+			minOrbit = minClockwise = Double.MAX_VALUE;
+			maxOrbit = maxClockwise = -Double.MAX_VALUE;
+		}
+		for (int i=boundsCount; i < count; i++) {
+			double orbit = orbitAt(i);
+			double clockwise = clockwiseAt(i);
+			minOrbit = Math.min(minOrbit, orbit);
+			maxOrbit = Math.max(maxOrbit, orbit);
+			minClockwise = Math.min(minClockwise, clockwise);
+			maxClockwise = Math.max(maxClockwise, clockwise);
+		}
+		// Segments ending at a new point
+		int step = getPointsPerSegment();
+		for (int i=Math.max(boundsCount-step, 0)/step*step; i+step < count; i += step) {
+			minOrbit = Math.min(minOrbit, getSegmentMinOrbit(sectors, i));
+		}
+		boundsCount = count;
+		return new PolarRegion(minOrbit, maxOrbit, minClockwise, maxClockwise, reflect);
+	}
+
+	/**
+	 * Gets the closest distance to the centre of the segment starting at a point. Curves are
+	 * within the convex hull of their end and control points, so the distance of the hull 
+	 * is used.
+	 * @param sectors Number of sectors to position points with
+	 * @param index Index of the first point of the segment
+	 * @return The distance as a percentage of the radius
+	 */
+	public synchronized double getSegmentMinOrbit(int sectors, int index) {
+		if (index + getPointsPerSegment() >= pointCount) {
+			return orbitAt(index);
+		}
+		updateUnitCache(sectors, index, index + getPointsPerSegment() + 1);
+		if (!curved) {
+			return Math.sqrt(getSegmentDistanceSq(0, 0, index, index+1));
+		}
+		// Hull contains the centre if any triangle of its points does
+		for (int i=0; i < 4; i++) {
+			if (isCentreInTriangle(index + (i+1)%4, index + (i+2)%4, index + (i+3)%4)) {
+				return 0;
+			}
+		}
+		// Otherwise the closest point is on an edge between two of its points
+		double minSq = Double.MAX_VALUE;
+		for (int i=index; i < index+3; i++) {
+			for (int j=i+1; j <= index+3; j++) {
+				minSq = Math.min(minSq, getSegmentDistanceSq(0, 0, i, j));
+			}
+		}
+		return Math.sqrt(minSq);
+	}
+
+	/**
+	 * Checks whether the centre is within the triangle between three cached unit positions.
+	 * @param a Index of first corner
+	 * @param b Index of second corner
+	 * @param c Index of third corner
+	 * @return true, if within or on the edge of the triangle
+	 */
+	private boolean isCentreInTriangle(int a, int b, int c) {
+		double ab = (double) getUnitX(a)*getUnitY(b) - (double) getUnitY(a)*getUnitX(b);
+		double bc = (double) getUnitX(b)*getUnitY(c) - (double) getUnitY(b)*getUnitX(c);
+		double ca = (double) getUnitX(c)*getUnitY(a) - (double) getUnitY(c)*getUnitX(a);
+		return (ab >= 0 && bc >= 0 && ca >= 0) || (ab <= 0 && bc <= 0 && ca <= 0);
+	}
+
+	/**
+	 * Find the squared distance of a position on a unit circle from the segment starting at
+	 * a point. Curves are flattened into straight segments to measure the distance.
+	 * @param sectors Number of sectors to position points with
+	 * @param index Index of the first point of the segment
+	 * @param x X position
+	 * @param y Y position
+	 * @param flatness Maximum distance of flattened segments from a curve
+	 * @return The squared distance
+	 */
+	public synchronized double getDistanceSq(int sectors, int index, double x, double y, double flatness) {
+		updateUnitCache(sectors, index, Math.min(index + getPointsPerSegment() + 1, pointCount));
+		if (index + getPointsPerSegment() >= pointCount) {
+			return getSegmentDistanceSq(x, y, index, index);
+		}
+		if (!curved) {
+			return getSegmentDistanceSq(x, y, index, index+1);
+		}
+		CubicCurve2D curve = new CubicCurve2D.Float(getUnitX(index), getUnitY(index), 
+				getUnitX(index+1), getUnitY(index+1), getUnitX(index+2), getUnitY(index+2),
+				getUnitX(index+3), getUnitY(index+3));
+		PathIterator segments = new FlatteningPathIterator(curve.getPathIterator(null), flatness);
+		double[] coords = new double[6];
+		double lastX = 0;
+		double lastY = 0;
+		double minSq = Double.MAX_VALUE;
+		while (!segments.isDone()) {
+			if (segments.currentSegment(coords) != PathIterator.SEG_MOVETO) {
+				minSq = Math.min(minSq, getSegmentDistanceSq(x, y, lastX, lastY, coords[0], coords[1]));
+			}
+			lastX = coords[0];
+			lastY = coords[1];
+			segments.next();
+		}
+		return minSq;
+	}
+
+	/**
+	 * Discard cached geometry of points from a given index, used when a point is replaced.
+	 * Polar bounds are kept as they still contain every remaining point.
+	 * @param index Index of the first point that changed
+	 */
+	private synchronized void invalidateFrom(int index) {
+		cachedCount = Math.min(cachedCount, index);
+		boundsCount = Math.min(boundsCount, index);
+		if (pathCount > index) {
+			unitPath = null;
+			pathCount = 0;
+		}
+		detailPaths = null;
+	}
 
-		// Configure interpolation settings
-		int planeSize = DEFAULT_INTERPOLATION_RESOLUTION;
-		double scaleFactor = DEFAULT_INTERPOLATION_SCALE_FACTOR;
-		double sectorAngle = DoilyUtilities.getSectorAngle(settings.getSectors());
-		Dimension planeResolution = new Dimension(planeSize, planeSize);
-		int planeRadius = DoilyUtilities.getRadius(planeResolution);
+	/**
+	 * Convert any points not yet in the unit position cache.
+	 * Sector count changes every position so discards the cache and polar extent.
+	 * @param sectors Number of sectors to position points with
+	 */
+	private void updateUnitCache(int sectors) {
+		updateUnitCache(sectors, 0, pointCount);
+	}
 
-		// Recreate points in interpolation plane
-		Point startPoint = start.getAbsolutePosition(planeRadius, sectorAngle);
-		Point endPoint = end.getAbsolutePosition(planeRadius, sectorAngle);
-		// Calculate midpoint
-		Point difPoints = new Point(endPoint.x - startPoint.x, endPoint.y - startPoint.y);
-		Point relPoint = new Point(startPoint.x + difPoints.x/2, startPoint.y + difPoints.y/2);
-		// Recreate point as a scaled position
-		LinePoint scaledpoint = LinePoint.scalePoint(relPoint, planeResolution, settings, start);	
+	/**
+	 * Make sure a range of points is in the unit position cache. Lines held here cache every
+	 * point. Stored lines cache a window of points, read from the store when the range is 
+	 * not already within it.
+	 * Sector count changes every position so discards the cache and polar extent.
+	 * @param sectors Number of sectors to position points with
+	 * @param start Index of the first point required
+	 * @param end Index after the last point required
+	 */
+	private void updateUnitCache(int sectors, int start, int end) {
+		if (sectors != cachedSectors) {
+			cachedSectors = sectors;
+			cachedStart = 0;
+			cachedCount = 0;
+			pathCount = 0;
+			unitPath = null;
+			detailPaths = null;
+			boundsCount = 0;
+		}
+		if (store != null) {
+			if (start < end && (start < cachedStart || end > cachedStart + cachedCount)) {
+				int count = Math.min(Math.max(end - start, STORE_WINDOW), pointCount - start);
+				if (unitCoords == null || unitCoords.length < count*2) {
+					unitCoords = new float[count*2];
+				}
+				store.getPositions(storeStart + start, storeStart + start + count, 1, 
+						DoilyUtilities.getSectorAngle(sectors), unitCoords, 0);
+				cachedStart = start;
+				cachedCount = count;
+			}
+			return;
+		}
+		int count = pointCount;
+		if (unitCoords == null || unitCoords.length < count*2) {
+			float[] coords = new float[Math.max(count*2, (unitCoords == null) ? 16 : unitCoords.length*2)];
+			if (unitCoords != null) {
+				System.arraycopy(unitCoords, 0, coords, 0, cachedCount*2);
+			}
+			unitCoords = coords;
+		}
+		LinePoint.getPositions(orbitScales, clockwiseScales, cachedCount, count, 1, 
+				DoilyUtilities.getSectorAngle(sectors), unitCoords, cachedCount*2);
+		cachedCount = count;
+	}
 
-		// If new point is valid and not zero
-		if ((difPoints.x != 0 || difPoints.y != 0) && scaledpoint != null) {
-			LinePoint scaledDif = new LinePoint(Math.abs(scaledpoint.getOrbitScale() - start.getOrbitScale()),
-					Math.abs(scaledpoint.getClockwiseScale() - start.getClockwiseScale()));
-			// Add point if separation is high
-			if (scaledDif.getOrbitScale() > scaleFactor || scaledDif.getClockwiseScale() > scaleFactor) {
-				// Add point, this will result in the interpolate function being recalled
-				addPoint(relPoint, planeResolution, settings);
+	/**
+	 * Append cached unit positions to a path, moving to the first position if the path is
+	 * empty. Curved lines append a curve for every three positions.
+	 * @param path Path to append to
+	 * @param sectors Number of sectors to position points with
+	 * @param start Index of the first point to append
+	 * @param end Index after the last point to append
+	 */
+	private void appendUnitPath(Path2D path, int sectors, int start, int end) {
+		int step = getPointsPerSegment();
+		int i = start;
+		if (i < end && path.getCurrentPoint() == null) {
+			updateUnitCache(sectors, i, i+1);
+			path.moveTo(getUnitX(i), getUnitY(i));
+			i++;
+		}
+		for (; i + step <= end; i += step) {
+			updateUnitCache(sectors, i, i+step);
+			if (curved) {
+				path.curveTo(getUnitX(i), getUnitY(i), getUnitX(i+1), getUnitY(i+1), 
+						getUnitX(i+2), getUnitY(i+2));
+			}
+			else {
+				path.lineTo(getUnitX(i), getUnitY(i));
 			}
 		}
 	}
 
 	@Override
 	public Line clone() {
-		Line newLine = new Line(scaleFactor, color, reflect);
-		for (LinePoint point : points) {
-			newLine.points.add(point.clone());
+		Line newLine = new Line(scaleFactor, color, reflect, curved);
+		if (store != null) {
+			// Stored points never change so can be shared
+			newLine.store = store;
+			newLine.storeStart = storeStart;
+			newLine.orbitScales = null;
+			newLine.clockwiseScales = null;
+		}
+		else {
+			newLine.orbitScales = Arrays.copyOf(orbitScales, pointCount);
+			newLine.clockwiseScales = Arrays.copyOf(clockwiseScales, pointCount);
 		}
+		newLine.pointCount = pointCount;
 		return newLine;
 	}
 
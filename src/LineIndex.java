@@ -0,0 +1,417 @@
+import java.awt.Dimension;
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+
+/**
+ * LineIndex class. A quadtree over the segments of lines in canonical polar space, the
+ * orbit and the clockwise position within a single sector. Every sector is a rotated copy
+ * of the first, so a point in any sector (or its reflection) can be mapped back to the first
+ * sector and only the segments near it need to be checked.
+ * Segments, straight or curved, are indexed in runs so that very long lines do not require
+ * an entry per point.
+ * 
+ * Digital Doily - COMP1206 Coursework
+ * @author David Jones [dsj1n15]
+ */
+public class LineIndex {
+	// Quadtree settings
+	private static final int RUN_LENGTH = 16;        // Segments held by a single entry
+	private static final int NODE_CAPACITY = 16;     // Entries held by a node before splitting
+	private static final int MAX_DEPTH = 16;         // Maximum depth of nodes
+	private static final double MAX_ORBIT = 2;       // Orbit covered by the root (others held at root)
+
+	// Instance variables
+	private int sectors;                             // Number of sectors positions are indexed for
+	private Node root;                               // Root node
+	private HashMap<Line, ArrayList<Entry>> entries; // Entries of every indexed line
+	private int maxScaleFactor;                      // Largest pen scale factor of indexed lines
+
+	/**
+	 * Instantiates a new empty index for a given number of sectors.
+	 * @param sectors Number of sectors to index positions for
+	 */
+	public LineIndex(int sectors) {
+		this.sectors = sectors;
+		clear();
+	}
+
+	/**
+	 * Gets the number of sectors positions are indexed for.
+	 * @return The number of sectors
+	 */
+	public int getSectors() {
+		return sectors;
+	}
+
+	/**
+	 * Remove all lines from the index.
+	 */
+	public void clear() {
+		root = new Node(0, 0, 1, MAX_ORBIT, 0);
+		entries = new HashMap<Line, ArrayList<Entry>>();
+		maxScaleFactor = 0;
+	}
+
+	/**
+	 * Checks whether a line is in the index.
+	 * @param line Line to check
+	 * @return true, if indexed
+	 */
+	public boolean contains(Line line) {
+		return entries.containsKey(line);
+	}
+
+	/**
+	 * Adds all segments of a line to the index. Points added to the line after this are not
+	 * indexed, so lines should only be added once complete.
+	 * @param line Line to add
+	 */
+	public void insert(Line line) {
+		if (entries.containsKey(line)) {
+			return;
+		}
+		ArrayList<Entry> lineEntries = new ArrayList<Entry>();
+		entries.put(line, lineEntries);
+		maxScaleFactor = Math.max(maxScaleFactor, line.getScaleFactor());
+		int count = line.getPointCount();
+		if (count == 0) {
+			return;
+		}
+		int step = line.getPointsPerSegment();
+		for (int start=0; start < Math.max(count-1, 1); start += RUN_LENGTH*step) {
+			int end = Math.min(start + RUN_LENGTH*step, count-1);
+			// Find polar bounds of the run's segments
+			double minOrbit = line.getOrbitScale(start);
+			double maxOrbit = 0;
+			double minClockwise = Double.MAX_VALUE;
+			double maxClockwise = -Double.MAX_VALUE;
+			for (int i=start; i <= end; i++) {
+				maxOrbit = Math.max(maxOrbit, line.getOrbitScale(i));
+				minClockwise = Math.min(minClockwise, line.getClockwiseScale(i));
+				maxClockwise = Math.max(maxClockwise, line.getClockwiseScale(i));
+			}
+			// A segment can pass closer to the centre than any of its points
+			for (int i=start; i < end; i += step) {
+				minOrbit = Math.min(minOrbit, line.getSegmentMinOrbit(sectors, i));
+			}
+			// Wrap clockwise range into the first sector, splitting if it crosses the boundary.
+			// Segments reaching the centre can cover every angle
+			if (maxClockwise - minClockwise >= 1 || minOrbit == 0) {
+				addEntry(lineEntries, new Entry(line, start, end, minOrbit, maxOrbit, 0, 1));
+			}
+			else {
+				double shift = Math.floor(minClockwise);
+				double lower = minClockwise - shift;
+				double upper = maxClockwise - shift;
+				addEntry(lineEntries, new Entry(line, start, end, minOrbit, maxOrbit, lower, Math.min(upper, 1)));
+				if (upper > 1) {
+					addEntry(lineEntries, new Entry(line, start, end, minOrbit, maxOrbit, 0, upper - 1));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Add an entry to the quadtree and the entries of its line.
+	 * @param lineEntries Entries of the line
+	 * @param entry Entry to add
+	 */
+	private void addEntry(ArrayList<Entry> lineEntries, Entry entry) {
+		lineEntries.add(entry);
+		root.insert(entry);
+	}
+
+	/**
+	 * Removes all segments of a line from the index.
+	 * @param line Line to remove
+	 */
+	public void remove(Line line) {
+		ArrayList<Entry> lineEntries = entries.remove(line);
+		if (lineEntries == null) {
+			return;
+		}
+		for (Entry entry : lineEntries) {
+			root.remove(entry);
+		}
+	}
+
+	/**
+	 * Find all indexed lines drawn within a distance of a point in any sector or reflection.
+	 * Pen sizes are included so a point on the edge of a thick line is a hit.
+	 * @param point Point relative to the centre
+	 * @param range Distance from the point in pixels
+	 * @param d Dimension lines are drawn at
+	 * @return Lines found, in no particular order
+	 */
+	public ArrayList<Line> findLines(Point point, double range, Dimension d) {
+		ArrayList<Line> found = new ArrayList<Line>();
+		int radius = DoilyUtilities.getRadius(d);
+		if (radius <= 0 || entries.isEmpty()) {
+			return found;
+		}
+		double sectorAngle = DoilyUtilities.getSectorAngle(sectors);
+		// Position of point in polar space, angles are clockwise from 12 o'clock
+		double distance = point.distance(0, 0);
+		double angle = Math.atan2(point.x, -point.y);
+		double orbit = distance/radius;
+		double clockwise = angle/sectorAngle;
+
+		// Search area must include the widest pen
+		double pad = range + DoilyUtilities.getPenSize(maxScaleFactor, d)/2.0 + 1;
+		double clockwisePad = (pad >= distance) ? 1 : Math.asin(pad/distance)/sectorAngle;
+		LinkedHashSet<Entry> candidates = new LinkedHashSet<Entry>();
+		double minOrbit = orbit - pad/radius;
+		double maxOrbit = orbit + pad/radius;
+		query(minOrbit, maxOrbit, clockwise - clockwisePad, clockwise + clockwisePad, candidates);
+		// Reflected copies mirror clockwise positions
+		query(minOrbit, maxOrbit, -clockwise - clockwisePad, -clockwise + clockwisePad, candidates);
+
+		// Check exact distances of candidate segments
+		LinkedHashSet<Line> hits = new LinkedHashSet<Line>();
+		for (Entry entry : candidates) {
+			Line line = entry.line;
+			if (hits.contains(line)) {
+				continue;
+			}
+			double hitRange = (range + DoilyUtilities.getPenSize(line.getScaleFactor(), d)/2.0)/radius;
+			if (isHit(entry, orbit, clockwise, hitRange, sectorAngle)) {
+				hits.add(line);
+			}
+		}
+		found.addAll(hits);
+		return found;
+	}
+
+	/**
+	 * Query the quadtree with a clockwise range that may extend outside of the first sector.
+	 * @param minOrbit Lowest orbit
+	 * @param maxOrbit Highest orbit
+	 * @param lower Lowest clockwise position
+	 * @param upper Highest clockwise position
+	 * @param candidates Set to add entries found to
+	 */
+	private void query(double minOrbit, double maxOrbit, double lower, double upper,
+			LinkedHashSet<Entry> candidates) {
+		if (upper - lower >= 1) {
+			root.query(minOrbit, maxOrbit, 0, 1, candidates);
+			return;
+		}
+		double shift = Math.floor(lower);
+		lower -= shift;
+		upper -= shift;
+		root.query(minOrbit, maxOrbit, lower, Math.min(upper, 1), candidates);
+		if (upper > 1) {
+			root.query(minOrbit, maxOrbit, 0, upper - 1, candidates);
+		}
+	}
+
+	/**
+	 * Checks whether any segment of an entry is within range of a point in any sector copy
+	 * or reflection of its line. The point is moved into the line's own sector instead of
+	 * moving every segment.
+	 * @param entry Entry to check
+	 * @param orbit Orbit of the point
+	 * @param clockwise Clockwise position of the point
+	 * @param range Distance as a percentage of the radius
+	 * @param sectorAngle The absolute sector angle in radians
+	 * @return true, if hit
+	 */
+	private boolean isHit(Entry entry, double orbit, double clockwise, double range,
+			double sectorAngle) {
+		Line line = entry.line;
+		double rangeSq = range*range;
+		int step = line.getPointsPerSegment();
+		for (int i=entry.start; i <= Math.max(entry.end-step, entry.start); i += step) {
+			// Clockwise span of the segment, curves can reach further than their end points
+			double lower = Double.MAX_VALUE;
+			double upper = -Double.MAX_VALUE;
+			for (int j=i; j <= Math.min(i+step, entry.end); j++) {
+				lower = Math.min(lower, line.getClockwiseScale(j));
+				upper = Math.max(upper, line.getClockwiseScale(j));
+			}
+			for (int r=0; r < (line.isReflect() ? 2 : 1); r++) {
+				// Sector copies near the span, reflection mirrors the point's clockwise position
+				double target = (r == 0) ? clockwise : -clockwise;
+				for (double copy=Math.rint(target - upper) - 1; copy <= Math.rint(target - lower) + 1; copy++) {
+					double moved = target - copy;
+					double angle = moved*sectorAngle;
+					double x = Math.sin(angle)*orbit;
+					double y = -Math.cos(angle)*orbit;
+					if (line.getDistanceSq(sectors, i, x, y, range/32) <= rangeSq) {
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * A run of segments of a line and its bounds in canonical polar space.
+	 * Inner class for LineIndex.
+	 */
+	private static class Entry {
+		private Line line;
+		private int start;
+		private int end;
+		private double minOrbit;
+		private double maxOrbit;
+		private double minClockwise;
+		private double maxClockwise;
+
+		/**
+		 * Instantiates a new entry.
+		 * @param line Line the segments belong to
+		 * @param start Index of the first point
+		 * @param end Index of the last point
+		 * @param minOrbit Lowest orbit
+		 * @param maxOrbit Highest orbit
+		 * @param minClockwise Lowest clockwise position within the first sector
+		 * @param maxClockwise Highest clockwise position within the first sector
+		 */
+		public Entry(Line line, int start, int end, double minOrbit, double maxOrbit,
+				double minClockwise, double maxClockwise) {
+			this.line = line;
+			this.start = start;
+			this.end = end;
+			this.minOrbit = minOrbit;
+			this.maxOrbit = maxOrbit;
+			this.minClockwise = minClockwise;
+			this.maxClockwise = maxClockwise;
+		}
+
+		/**
+		 * Checks whether the entry's bounds intersect a range.
+		 * @param minOrbit Lowest orbit
+		 * @param maxOrbit Highest orbit
+		 * @param lower Lowest clockwise position
+		 * @param upper Highest clockwise position
+		 * @return true, if intersecting
+		 */
+		public boolean intersects(double minOrbit, double maxOrbit, double lower, double upper) {
+			return this.minOrbit <= maxOrbit && this.maxOrbit >= minOrbit
+					&& this.minClockwise <= upper && this.maxClockwise >= lower;
+		}
+
+	}
+
+	/**
+	 * A node of the quadtree covering a clockwise and orbit range. Entries that do not fit
+	 * in a single child are held by the node itself.
+	 * Inner class for LineIndex.
+	 */
+	private static class Node {
+		private double minClockwise;
+		private double minOrbit;
+		private double maxClockwise;
+		private double maxOrbit;
+		private int depth;
+		private ArrayList<Entry> items = new ArrayList<Entry>();
+		private Node[] children;
+
+		/**
+		 * Instantiates a new node.
+		 * @param minClockwise Lowest clockwise position covered
+		 * @param minOrbit Lowest orbit covered
+		 * @param maxClockwise Highest clockwise position covered
+		 * @param maxOrbit Highest orbit covered
+		 * @param depth Depth of the node
+		 */
+		public Node(double minClockwise, double minOrbit, double maxClockwise, double maxOrbit, int depth) {
+			this.minClockwise = minClockwise;
+			this.minOrbit = minOrbit;
+			this.maxClockwise = maxClockwise;
+			this.maxOrbit = maxOrbit;
+			this.depth = depth;
+		}
+
+		/**
+		 * Insert an entry into the node or the child that contains it.
+		 * @param entry Entry to insert
+		 */
+		public void insert(Entry entry) {
+			if (children != null) {
+				Node child = getChild(entry);
+				if (child != null) {
+					child.insert(entry);
+					return;
+				}
+			}
+			items.add(entry);
+			// Split when full, moving entries that fit into a child
+			if (children == null && items.size() > NODE_CAPACITY && depth < MAX_DEPTH) {
+				double midClockwise = (minClockwise + maxClockwise)/2;
+				double midOrbit = (minOrbit + maxOrbit)/2;
+				children = new Node[] {
+						new Node(minClockwise, minOrbit, midClockwise, midOrbit, depth+1),
+						new Node(midClockwise, minOrbit, maxClockwise, midOrbit, depth+1),
+						new Node(minClockwise, midOrbit, midClockwise, maxOrbit, depth+1),
+						new Node(midClockwise, midOrbit, maxClockwise, maxOrbit, depth+1)};
+				ArrayList<Entry> held = items;
+				items = new ArrayList<Entry>();
+				for (Entry item : held) {
+					insert(item);
+				}
+			}
+		}
+
+		/**
+		 * Remove an entry from the node or the child that contains it.
+		 * @param entry Entry to remove
+		 * @return true, if removed
+		 */
+		public boolean remove(Entry entry) {
+			if (children != null) {
+				Node child = getChild(entry);
+				if (child != null) {
+					return child.remove(entry);
+				}
+			}
+			return items.remove(entry);
+		}
+
+		/**
+		 * Add all entries intersecting a range to a set.
+		 * @param minOrbit Lowest orbit
+		 * @param maxOrbit Highest orbit
+		 * @param lower Lowest clockwise position
+		 * @param upper Highest clockwise position
+		 * @param found Set to add entries to
+		 */
+		public void query(double minOrbit, double maxOrbit, double lower, double upper,
+				LinkedHashSet<Entry> found) {
+			for (Entry item : items) {
+				if (item.intersects(minOrbit, maxOrbit, lower, upper)) {
+					found.add(item);
+				}
+			}
+			if (children != null) {
+				for (Node child : children) {
+					if (child.minOrbit <= maxOrbit && child.maxOrbit >= minOrbit
+							&& child.minClockwise <= upper && child.maxClockwise >= lower) {
+						child.query(minOrbit, maxOrbit, lower, upper, found);
+					}
+				}
+			}
+		}
+
+		/**
+		 * Find the child that fully contains an entry.
+		 * @param entry Entry to find the child of
+		 * @return The child, null if no single child contains the entry
+		 */
+		private Node getChild(Entry entry) {
+			for (Node child : children) {
+				if (entry.minOrbit >= child.minOrbit && entry.maxOrbit <= child.maxOrbit
+						&& entry.minClockwise >= child.minClockwise && entry.maxClockwise <= child.maxClockwise) {
+					return child;
+				}
+			}
+			return null;
+		}
+
+	}
+
+}
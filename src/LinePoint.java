@@ -82,6 +82,66 @@ public class LinePoint {
 				-(int)Math.round(Math.cos(angle)*orbit));
 	}
 
+	/**
+	 * Get the position of a scaled point on a unit circle centred around [0,0].
+	 * @param orbitScale Position as a percentage of the radius
+	 * @param clockwiseScale Position as a percentage of the clockwise arc length
+	 * @param sectorAngle The absolute sector angle in radians [Positioning value]
+	 * @param out Array to store the x and y position in
+	 * @param offset Index of out to store the x position at, y is stored after it
+	 */
+	public static void getUnitPosition(double orbitScale, double clockwiseScale, double sectorAngle, 
+			float[] out, int offset) {
+		getPosition(orbitScale, clockwiseScale, 1, sectorAngle, out, offset);
+	}
+
+	/**
+	 * Convert a range of scaled points to positions around [0,0] in a single pass, without
+	 * allocating. Positions are stored interleaved as x,y pairs.
+	 * @param orbitScales Positions as a percentage of the radius
+	 * @param clockwiseScales Positions as a percentage of the clockwise arc length
+	 * @param start Index of the first point to convert
+	 * @param end Index after the last point to convert
+	 * @param radius The radius to scale positions by [Positioning value]
+	 * @param sectorAngle The absolute sector angle in radians [Positioning value]
+	 * @param out Array to store positions in
+	 * @param offset Index of out to store the first x position at
+	 */
+	public static void getPositions(double[] orbitScales, double[] clockwiseScales, int start, 
+			int end, double radius, double sectorAngle, float[] out, int offset) {
+		for (int i=start; i < end; i++) {
+			getPosition(orbitScales[i], clockwiseScales[i], radius, sectorAngle, out, 
+					offset + (i-start)*2);
+		}
+	}
+
+	/**
+	 * Get the position of a scaled point around [0,0]. Sine and cosine are found together by
+	 * reducing the angle to within a quarter turn of zero and using Taylor polynomials, which
+	 * are accurate beyond float precision and about twice as fast as Math.sin and Math.cos.
+	 * Each half turn removed only flips the sign of the result, so no branches are needed.
+	 * @param orbitScale Position as a percentage of the radius
+	 * @param clockwiseScale Position as a percentage of the clockwise arc length
+	 * @param radius The radius to scale the position by [Positioning value]
+	 * @param sectorAngle The absolute sector angle in radians [Positioning value]
+	 * @param out Array to store the x and y position in
+	 * @param offset Index of out to store the x position at, y is stored after it
+	 */
+	public static void getPosition(double orbitScale, double clockwiseScale, double radius, 
+			double sectorAngle, float[] out, int offset) {
+		double angle = clockwiseScale*sectorAngle;
+		double halfTurns = Math.rint(angle/Math.PI);
+		double r = angle - halfTurns*Math.PI;
+		double r2 = r*r;
+		double sin = r*(1 - r2*(1/6.0)*(1 - r2*(1/20.0)*(1 - r2*(1/42.0)*(1 - r2*(1/72.0)
+				*(1 - r2*(1/110.0)*(1 - r2*(1/156.0)))))));
+		double cos = 1 - r2*(1/2.0)*(1 - r2*(1/12.0)*(1 - r2*(1/30.0)*(1 - r2*(1/56.0)
+				*(1 - r2*(1/90.0)*(1 - r2*(1/132.0))))));
+		double orbit = orbitScale*radius*(1 - 2*((long) halfTurns & 1));
+		out[offset] = (float) (sin*orbit);
+		out[offset+1] = (float) (-cos*orbit);
+	}
+
 	/**
 	 * Convert an absolute point (from a centre) to a scaled point using positioning values.
 	 * Use settings to determine invalid points and use a previous point to handle wrapped values.
@@ -93,42 +153,106 @@ public class LinePoint {
 	 */
 	public static LinePoint scalePoint(Point absolute, Dimension d, 
 			DoilySettings settings, LinePoint lastPoint) {
-		// Determine capturing constraints
-		int radius = DoilyUtilities.getRadius(d);
-		int sectors = settings.getSectors();
-		double sectorAngle = DoilyUtilities.getSectorAngle(sectors);
-
-		// Calculate angular position and distance from centre
-		// Calculate direct distance (radius) using pythagoras
-		double distance = Math.sqrt(Math.pow(absolute.x, 2)+Math.pow(absolute.y, 2));    	
-		// Find position in radians (convert so clockwise from the vertical)
-		double radPos = (Math.atan2(absolute.y, absolute.x) + 2.5*Math.PI) % (2*Math.PI);
-
-		// Find sector in which point resides
-		for (int sector=0; sector < sectors; sector++) {
-			// Find sector constraints
-			double lowerAngle = sectorAngle*sector;
-			double upperAngle = lowerAngle + sectorAngle;
-			double maxDistance = radius - DoilyUtilities.getPenSize(settings.getPenScale(), d)/2;
-
-			// If point is within sector bounds
-			if (lowerAngle <= radPos && upperAngle > radPos && 
-					(!settings.isCircleBounded() || distance < maxDistance)) {
-				// Determine relative scaling
-				double orbitScale = distance/radius;
-				double clockwiseScale = radPos/sectorAngle;				
-				LinePoint newPoint = new LinePoint(orbitScale, clockwiseScale);
-				// Handle influence of existing points 
-				if (lastPoint != null) {
-					// Modify clockwise scaling to take into account wrapping around full circle
-					int wrapCount = (int) Math.floor(((lastPoint.getClockwiseScale() - clockwiseScale) / sectors)+0.5);
-					newPoint.setClockwiseScale(clockwiseScale+sectors*wrapCount);
-				}
-				return newPoint;
+		ScaleConstraints constraints = new ScaleConstraints(d, settings);
+		double clockwiseScale = constraints.getClockwiseScale(absolute.x, absolute.y, 
+				(lastPoint == null) ? Double.NaN : lastPoint.getClockwiseScale());
+		if (Double.isNaN(clockwiseScale)) {
+			return null;
+		}
+		return new LinePoint(constraints.getOrbitScale(absolute.x, absolute.y), clockwiseScale);
+	}
+
+	/**
+	 * Convert a batch of absolute points (from a centre) to scaled points, without allocating.
+	 * Invalid points are skipped, and every point is wrapped to follow the one before it.
+	 * @param coords Points centred around [0,0] stored interleaved as x,y pairs
+	 * @param count Number of points to convert
+	 * @param constraints Constraints the points were recorded with
+	 * @param lastClockwiseScale Clockwise scale of an existing point used to calculate wrapping 
+	 * of the first point (NaN if none)
+	 * @param orbitScales Array to store orbit scales of valid points in
+	 * @param clockwiseScales Array to store clockwise scales of valid points in
+	 * @param offset Index of the arrays to store the first valid point at
+	 * @return Number of valid points stored
+	 */
+	public static int scalePoints(int[] coords, int count, ScaleConstraints constraints, 
+			double lastClockwiseScale, double[] orbitScales, double[] clockwiseScales, int offset) {
+		int stored = 0;
+		for (int i=0; i < count; i++) {
+			int x = coords[i*2];
+			int y = coords[i*2+1];
+			double clockwiseScale = constraints.getClockwiseScale(x, y, lastClockwiseScale);
+			if (!Double.isNaN(clockwiseScale)) {
+				orbitScales[offset+stored] = constraints.getOrbitScale(x, y);
+				clockwiseScales[offset+stored] = clockwiseScale;
+				lastClockwiseScale = clockwiseScale;
+				stored++;
+			}
+		}
+		return stored;
+	}
+
+	/**
+	 * ScaleConstraints class. Holds the constraints on scaling points recorded in a single 
+	 * dimension with fixed settings, found once so that any number of points can be scaled 
+	 * with them.
+	 */
+	public static class ScaleConstraints {
+		private int radius;             // Absolute radius of the doily
+		private int sectors;            // Number of sectors
+		private double sectorAngle;     // Absolute sector angle in radians
+		private double maxDistance;     // Distance from the centre points must be within
+
+		/**
+		 * Instantiates new scale constraints.
+		 * @param d Dimension points are recorded in
+		 * @param settings Settings object used for recording
+		 */
+		public ScaleConstraints(Dimension d, DoilySettings settings) {
+			radius = DoilyUtilities.getRadius(d);
+			sectors = settings.getSectors();
+			sectorAngle = DoilyUtilities.getSectorAngle(sectors);
+			if (settings.isCircleBounded()) {
+				maxDistance = radius - DoilyUtilities.getPenSize(settings.getPenScale(), d)/2;
+			}
+			else {
+				maxDistance = Double.POSITIVE_INFINITY;
+			}
+		}
+
+		/**
+		 * Gets the orbit scale of an absolute point.
+		 * @param x X position centred around 0
+		 * @param y Y position centred around 0
+		 * @return The orbit scale
+		 */
+		public double getOrbitScale(double x, double y) {
+			return Math.sqrt(x*x + y*y)/radius;
+		}
+
+		/**
+		 * Gets the clockwise scale of an absolute point, wrapped to be within half a full 
+		 * circle of the clockwise scale of an existing point. Every angle is within a sector,
+		 * so points are only invalid if they are outside the circle bounds.
+		 * @param x X position centred around 0
+		 * @param y Y position centred around 0
+		 * @param lastClockwiseScale Clockwise scale of existing point (NaN if none)
+		 * @return The clockwise scale, NaN if the point is invalid
+		 */
+		public double getClockwiseScale(double x, double y, double lastClockwiseScale) {
+			if (!(Math.sqrt(x*x + y*y) < maxDistance)) {
+				return Double.NaN;
+			}
+			// Find position in radians (convert so clockwise from the vertical)
+			double radPos = (Math.atan2(y, x) + 2.5*Math.PI) % (2*Math.PI);
+			double clockwiseScale = radPos/sectorAngle;
+			// Modify clockwise scaling to take into account wrapping around full circle
+			if (!Double.isNaN(lastClockwiseScale)) {
+				int wrapCount = (int) Math.floor(((lastClockwiseScale - clockwiseScale) / sectors)+0.5);
+				clockwiseScale += sectors*wrapCount;
 			}
+			return clockwiseScale;
 		}
-		// Point does not reside in any sector
-		return null;
 	}
 
 	@Override
@@ -0,0 +1,385 @@
+import java.awt.Point;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.util.Arrays;
+
+/**
+ * LineRasterizer class. Draws lines with round caps and joins straight into the pixels of an
+ * integer image, without anti-aliasing, as a faster alternative to stroking with Java2D.
+ * A pixel is filled if its centre is within half the pen size of the line, the same shape
+ * as a round capped and joined stroke. Each segment covers a capsule whose span on every row
+ * is found exactly, and the spans of a line are merged per row so every pixel is written
+ * once however thick the pen or close the points.
+ * Vertices are moved to the nearest quarter pixel as Java2D does when stroking without 
+ * anti-aliasing. This is not symmetric around the centre, so rotated and reflected copies 
+ * cannot share pixels and are each positioned from a table of sector rotations.
+ *
+ * Digital Doily - COMP1206 Coursework
+ * @author David Jones [dsj1n15]
+ */
+public class LineRasterizer {
+	private static final double FLATNESS = 0.25;         // Maximum error of flattened curves in pixels
+	private static final double NORMALIZE_OFFSET = 0.25; // Quarter pixel vertices are moved to
+
+	// Image variables
+	private int[] pixels;                    // Pixels of image
+	private int width;                       // Width of image
+	private int height;                      // Height of image
+	private int stride;                      // Pixels between rows
+	private int offset;                      // Index of the first pixel
+	private int originX;                     // Position of image's left edge when drawing
+	private int originY;                     // Position of image's top edge when drawing
+	// Scratch storage of merged spans by row, reused between lines
+	private int[][] rowSpans = new int[0][]; // Pairs of first & last pixel of spans
+	private int[] rowCounts = new int[0];    // Number of values held for each row
+	private int rowBase;                     // Row of the first entry
+	private int rowFirst;                    // First row holding spans
+	private int rowLast;                     // Last row holding spans
+	private float[] vertices = new float[64]; // Positions of a copy of a line as x,y pairs
+	// Symmetry table, rotation of every sector
+	private double[] sectorCos = new double[0]; // Cosine of the rotation of each sector
+	private double[] sectorSin = new double[0]; // Sine of the rotation of each sector
+
+	/**
+	 * Instantiates a new line rasterizer drawing into an image.
+	 * @param image Image of type TYPE_INT_RGB or TYPE_INT_ARGB to draw into
+	 * @param originX Position of the image's left edge when drawing
+	 * @param originY Position of the image's top edge when drawing
+	 */
+	public LineRasterizer(BufferedImage image, int originX, int originY) {
+		if (image.getType() != BufferedImage.TYPE_INT_RGB
+				&& image.getType() != BufferedImage.TYPE_INT_ARGB) {
+			throw new IllegalArgumentException("Image must hold integer RGB pixels");
+		}
+		DataBufferInt buffer = (DataBufferInt) image.getRaster().getDataBuffer();
+		SinglePixelPackedSampleModel model =
+				(SinglePixelPackedSampleModel) image.getRaster().getSampleModel();
+		this.pixels = buffer.getData();
+		this.width = image.getWidth();
+		this.height = image.getHeight();
+		this.stride = model.getScanlineStride();
+		this.offset = buffer.getOffset() - image.getRaster().getSampleModelTranslateY()*stride
+				- image.getRaster().getSampleModelTranslateX();
+		this.originX = originX;
+		this.originY = originY;
+	}
+
+	/**
+	 * Gets whether a line can be drawn by a rasterizer, otherwise it must be stroked. Pens
+	 * thinner than a pixel are drawn as hairlines by Java2D, and translucent colours would
+	 * blend where copies overlap.
+	 * @param line Line to check
+	 * @param penSize Size of the pen in pixels
+	 * @return true, if the line can be rasterized
+	 */
+	public static boolean canDraw(Line line, int penSize) {
+		return penSize >= 1 && line.getColor().getAlpha() == 255;
+	}
+
+	/**
+	 * Draw a unit path in every sector (and reflection) of a doily.
+	 * @param path Path positioned on a unit circle
+	 * @param reflect Whether to also draw the path mirrored in every sector
+	 * @param centre Centre of the doily
+	 * @param radius The absolute radius
+	 * @param sectors Number of sectors
+	 * @param penSize Size of the pen in pixels
+	 * @param rgb Colour to draw with, fully opaque
+	 */
+	public void drawCopies(Path2D path, boolean reflect, Point centre, int radius, int sectors,
+			int penSize, int rgb) {
+		int count = getVertices(path, radius);
+		if (count == 0) {
+			return;
+		}
+		updateSectors(sectors);
+		float[] unit = Arrays.copyOf(vertices, count*2);
+		double penRadius = penSize/2.0;
+		int color = 0xFF000000 | rgb;
+		for (int i=0; i < sectors; i++) {
+			for (int r=0; r < (reflect ? 2 : 1); r++) {
+				// Position copy of sector, reflected path mirrors across the vertical
+				double cos = sectorCos[i];
+				double sin = sectorSin[i];
+				double scaleX = (r == 0) ? radius : -radius;
+				for (int p=0; p < count*2; p += 2) {
+					double x = unit[p]*scaleX;
+					double y = unit[p+1]*radius;
+					vertices[p] = normalize(centre.x + cos*x - sin*y);
+					vertices[p+1] = normalize(centre.y + sin*x + cos*y);
+				}
+				rasterize(count, penRadius);
+				writeSpans(color);
+			}
+		}
+	}
+
+	/**
+	 * Fill the symmetry table for a number of sectors if not already filled.
+	 * @param sectors Number of sectors
+	 */
+	private void updateSectors(int sectors) {
+		if (sectorCos.length == sectors) {
+			return;
+		}
+		double sectorAngle = DoilyUtilities.getSectorAngle(sectors);
+		sectorCos = new double[sectors];
+		sectorSin = new double[sectors];
+		for (int i=0; i < sectors; i++) {
+			sectorCos[i] = Math.cos(sectorAngle*i);
+			sectorSin[i] = Math.sin(sectorAngle*i);
+		}
+	}
+
+	/**
+	 * Move a position to the nearest quarter pixel.
+	 * @param position Position in pixels
+	 * @return The moved position
+	 */
+	private float normalize(double position) {
+		return (float) (Math.floor(position + NORMALIZE_OFFSET) + NORMALIZE_OFFSET);
+	}
+
+	/**
+	 * Flatten a unit path into vertices scaled by a radius, centred around [0,0].
+	 * Only the vertices of the first subpath are kept as lines only ever have one.
+	 * @param path Path positioned on a unit circle
+	 * @param radius The absolute radius
+	 * @return Number of vertices, 0 if the path has no segments
+	 */
+	private int getVertices(Path2D path, int radius) {
+		PathIterator iterator = path.getPathIterator(null, FLATNESS/radius);
+		float[] coords = new float[6];
+		int count = 0;
+		while (!iterator.isDone()) {
+			int type = iterator.currentSegment(coords);
+			if (type == PathIterator.SEG_MOVETO && count > 0) {
+				break;
+			}
+			if (type != PathIterator.SEG_CLOSE) {
+				if (count*2 + 2 > vertices.length) {
+					vertices = Arrays.copyOf(vertices, vertices.length*2);
+				}
+				vertices[count*2] = coords[0];
+				vertices[count*2 + 1] = coords[1];
+				count++;
+			}
+			iterator.next();
+		}
+		return (count < 2) ? 0 : count;
+	}
+
+	/**
+	 * Find the merged spans of every row of the image covered by the capsules of the current
+	 * vertices.
+	 * @param count Number of vertices
+	 * @param penRadius Half the pen size in pixels
+	 */
+	private void rasterize(int count, double penRadius) {
+		// Prepare rows covered by the line within the image, copies missing it are skipped
+		float minX = vertices[0];
+		float maxX = vertices[0];
+		float minY = vertices[1];
+		float maxY = vertices[1];
+		for (int p=2; p < count*2; p += 2) {
+			minX = Math.min(minX, vertices[p]);
+			maxX = Math.max(maxX, vertices[p]);
+			minY = Math.min(minY, vertices[p+1]);
+			maxY = Math.max(maxY, vertices[p+1]);
+		}
+		rowFirst = Math.max((int) Math.ceil(minY - penRadius - 0.5), originY);
+		rowLast = Math.min((int) Math.floor(maxY + penRadius - 0.5), originY + height - 1);
+		if (maxX + penRadius < originX || minX - penRadius > originX + width) {
+			rowLast = rowFirst - 1;
+		}
+		int rows = rowLast - rowFirst + 1;
+		if (rows <= 0) {
+			return;
+		}
+		if (rows > rowCounts.length) {
+			rowSpans = Arrays.copyOf(rowSpans, rows);
+			rowCounts = new int[rows];
+		}
+		rowBase = rowFirst;
+		Arrays.fill(rowCounts, 0, rows, 0);
+		// Add the capsule of every segment
+		for (int p=0; p < (count-1)*2; p += 2) {
+			addCapsule(vertices[p], vertices[p+1], vertices[p+2], vertices[p+3], penRadius);
+		}
+		// Merge overlapping spans of each row
+		for (int row=0; row < rows; row++) {
+			mergeSpans(row);
+		}
+	}
+
+	/**
+	 * Add the spans of every row covered by the pixels whose centres are within a distance
+	 * of a segment.
+	 * @param ax X position of the start of the segment
+	 * @param ay Y position of the start of the segment
+	 * @param bx X position of the end of the segment
+	 * @param by Y position of the end of the segment
+	 * @param r Distance from the segment
+	 */
+	private void addCapsule(double ax, double ay, double bx, double by, double r) {
+		double dx = bx - ax;
+		double dy = by - ay;
+		double length = Math.sqrt(dx*dx + dy*dy);
+		double ux = (length > 0) ? dx/length : 0;
+		double uy = (length > 0) ? dy/length : 0;
+		int first = Math.max((int) Math.ceil(Math.min(ay, by) - r - 0.5), rowFirst);
+		int last = Math.min((int) Math.floor(Math.max(ay, by) + r - 0.5), rowLast);
+		for (int row=first; row <= last; row++) {
+			double y = row + 0.5;
+			double lo = Double.POSITIVE_INFINITY;
+			double hi = Double.NEGATIVE_INFINITY;
+			// Caps at either end
+			double h = r*r - (y-ay)*(y-ay);
+			if (h >= 0) {
+				h = Math.sqrt(h);
+				lo = ax - h;
+				hi = ax + h;
+			}
+			h = r*r - (y-by)*(y-by);
+			if (h >= 0) {
+				h = Math.sqrt(h);
+				lo = Math.min(lo, bx - h);
+				hi = Math.max(hi, bx + h);
+			}
+			// Body, within distance of the line and projecting onto the segment
+			if (length > 0) {
+				double bodyLo = Double.NEGATIVE_INFINITY;
+				double bodyHi = Double.POSITIVE_INFINITY;
+				double across = (y-ay)*ux;
+				if (uy != 0) {
+					double x0 = ax + (across - r)/uy;
+					double x1 = ax + (across + r)/uy;
+					bodyLo = Math.min(x0, x1);
+					bodyHi = Math.max(x0, x1);
+				}
+				else if (Math.abs(across) > r) {
+					bodyLo = Double.POSITIVE_INFINITY;
+				}
+				double along = (y-ay)*uy;
+				if (ux != 0) {
+					double x0 = ax - along/ux;
+					double x1 = ax + (length - along)/ux;
+					bodyLo = Math.max(bodyLo, Math.min(x0, x1));
+					bodyHi = Math.min(bodyHi, Math.max(x0, x1));
+				}
+				else if (along < 0 || along > length) {
+					bodyLo = Double.POSITIVE_INFINITY;
+				}
+				if (bodyLo <= bodyHi) {
+					lo = Math.min(lo, bodyLo);
+					hi = Math.max(hi, bodyHi);
+				}
+			}
+			// Pixels with centres inside the span
+			int x0 = (int) Math.ceil(lo - 0.5);
+			int x1 = (int) Math.floor(hi - 0.5);
+			if (x0 <= x1) {
+				addSpan(row - rowBase, x0, x1);
+			}
+		}
+	}
+
+	/**
+	 * Add a span to a row, joining it to the last span added if they touch as consecutive
+	 * segments mostly cover the same pixels.
+	 * @param row Index of the row from the first row
+	 * @param x0 First pixel of the span
+	 * @param x1 Last pixel of the span
+	 */
+	private void addSpan(int row, int x0, int x1) {
+		int count = rowCounts[row];
+		int[] spans = rowSpans[row];
+		if (count > 0 && x0 <= spans[count-1] + 1 && x1 >= spans[count-2] - 1) {
+			spans[count-2] = Math.min(spans[count-2], x0);
+			spans[count-1] = Math.max(spans[count-1], x1);
+			return;
+		}
+		if (spans == null || count + 2 > spans.length) {
+			spans = (spans == null) ? new int[8] : Arrays.copyOf(spans, spans.length*2);
+			rowSpans[row] = spans;
+		}
+		spans[count] = x0;
+		spans[count+1] = x1;
+		rowCounts[row] = count + 2;
+	}
+
+	/**
+	 * Sort the spans of a row and merge any that touch.
+	 * @param row Index of the row from the first row
+	 */
+	private void mergeSpans(int row) {
+		int count = rowCounts[row];
+		if (count <= 2) {
+			return;
+		}
+		int[] spans = rowSpans[row];
+		// Insertion sort by first pixel, rows rarely hold more than a few spans
+		for (int i=2; i < count; i += 2) {
+			int x0 = spans[i];
+			int x1 = spans[i+1];
+			int j = i - 2;
+			while (j >= 0 && spans[j] > x0) {
+				spans[j+2] = spans[j];
+				spans[j+3] = spans[j+1];
+				j -= 2;
+			}
+			spans[j+2] = x0;
+			spans[j+3] = x1;
+		}
+		int merged = 2;
+		for (int i=2; i < count; i += 2) {
+			if (spans[i] <= spans[merged-1] + 1) {
+				spans[merged-1] = Math.max(spans[merged-1], spans[i+1]);
+			}
+			else {
+				spans[merged] = spans[i];
+				spans[merged+1] = spans[i+1];
+				merged += 2;
+			}
+		}
+		rowCounts[row] = merged;
+	}
+
+	/**
+	 * Write the merged spans to the image.
+	 * @param color Colour to write
+	 */
+	private void writeSpans(int color) {
+		for (int row=rowFirst; row <= rowLast; row++) {
+			int count = rowCounts[row - rowBase];
+			int[] spans = rowSpans[row - rowBase];
+			for (int i=0; i < count; i += 2) {
+				fillRow(row, spans[i], spans[i+1], color);
+			}
+		}
+	}
+
+	/**
+	 * Fill the pixels of a row between two positions, clipped to the image.
+	 * @param y Row to fill
+	 * @param x0 First pixel to fill
+	 * @param x1 Last pixel to fill
+	 * @param color Colour to fill with
+	 */
+	private void fillRow(int y, int x0, int x1, int color) {
+		y -= originY;
+		if (y < 0 || y >= height) {
+			return;
+		}
+		x0 = Math.max(x0 - originX, 0);
+		x1 = Math.min(x1 - originX, width - 1);
+		if (x0 <= x1) {
+			int index = offset + y*stride;
+			Arrays.fill(pixels, index + x0, index + x1 + 1, color);
+		}
+	}
+
+}
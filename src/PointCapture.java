@@ -0,0 +1,219 @@
+import java.awt.Dimension;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * PointCapture class. Adds captured points to lines on a dedicated capture thread, so that
+ * scaling, interpolation and curve fitting never delay the thread receiving input.
+ * Points are passed from a single producer thread to the capture thread through a lock-free
+ * ring buffer. The capture thread drains every point waiting at once, adding each burst to
+ * its line as a single batch and passing the changed segments to a listener.
+ * If the ring buffer is full the producer keeps only the latest point, merging a burst it 
+ * cannot queue into a single point. Each line is added to with a copy of the settings taken
+ * when its first point is queued, so settings changed mid-stroke never race the capture thread.
+ * 
+ * Digital Doily - COMP1206 Coursework
+ * @author David Jones [dsj1n15]
+ */
+public class PointCapture {
+	private static final int CAPACITY = 1 << 12;              // Points queued (power of two)
+	private static final int BATCH_SIZE = 256;                // Points added to a line at once
+	private static final long IDLE_WAIT = 50000;              // Nanoseconds between idle checks
+
+	// Ring buffer, slots are written by the producer then published by advancing the tail
+	private int[] coords = new int[CAPACITY*2];               // Interleaved x,y points from centre
+	private Line[] lines = new Line[CAPACITY];                // Line each point is added to
+	private Dimension[] sizes = new Dimension[CAPACITY];      // Dimension each point was captured in
+	private DoilySettings[] lineSettings = new DoilySettings[CAPACITY]; // Settings each point is added with
+	private AtomicLong head = new AtomicLong();               // Slots consumed by the capture thread
+	private AtomicLong tail = new AtomicLong();               // Slots published by the producer
+	private AtomicLong done = new AtomicLong();               // Slots with points added to lines
+	private volatile boolean waiting;                         // Whether the capture thread is parked
+	// Latest point not yet queued as the ring buffer was full (producer only)
+	private Line pendingLine;                                 // Line of pending point (null if none)
+	private int pendingX;
+	private int pendingY;
+	private Dimension pendingSize;
+	// Settings of the line being queued (producer only)
+	private DoilySettings settings;                           // Settings copied for each new line
+	private Line copiedLine;                                  // Line last queued (null if none)
+	private DoilySettings copiedSettings;                     // Copy of settings for the line last queued
+	// Capture thread
+	private CaptureListener listener;                         // Receives changed segments
+	private Thread thread;                                    // Capture thread (null until started)
+	private int[] batch = new int[BATCH_SIZE*2];              // Points of a batch being added
+
+	/**
+	 * Instantiates a new point capture. The capture thread is started when the first point 
+	 * is captured.
+	 * @param settings Settings points are added with
+	 * @param listener Listener to pass changed segments to
+	 */
+	public PointCapture(DoilySettings settings, CaptureListener listener) {
+		this.settings = settings;
+		this.listener = listener;
+	}
+
+	/**
+	 * Sets the settings points are added with, from the next line queued. Must be called from
+	 * the thread that queues points.
+	 * @param settings The new settings
+	 */
+	public void setSettings(DoilySettings settings) {
+		this.settings = settings;
+	}
+
+	/**
+	 * Queue a point to be added to a line. Must always be called from the same thread.
+	 * Never blocks, if there is no room the point replaces any other waiting for room.
+	 * @param line Line to add the point to
+	 * @param x X position centred around 0
+	 * @param y Y position centred around 0
+	 * @param d Dimension the point was captured in
+	 */
+	public void capture(Line line, int x, int y, Dimension d) {
+		if (thread == null) {
+			start();
+		}
+		// Earlier point waiting for room is queued first, unless this point replaces it
+		if (pendingLine != null) {
+			if (offer(pendingLine, pendingX, pendingY, pendingSize)) {
+				pendingLine = null;
+			}
+			else if (pendingLine == line) {
+				pendingX = x;
+				pendingY = y;
+				pendingSize = d;
+				return;
+			}
+			else {
+				flush();
+			}
+		}
+		// Settings are copied once the points of any earlier line are queued
+		if (line != copiedLine) {
+			copiedLine = line;
+			copiedSettings = settings.clone();
+		}
+		if (!offer(line, x, y, d)) {
+			pendingLine = line;
+			pendingX = x;
+			pendingY = y;
+			pendingSize = d;
+		}
+	}
+
+	/**
+	 * Wait until every queued point has been added to its line, including a point waiting 
+	 * for room. Must be called from the thread that queues points.
+	 */
+	public void flush() {
+		while (pendingLine != null) {
+			if (offer(pendingLine, pendingX, pendingY, pendingSize)) {
+				pendingLine = null;
+			}
+			else {
+				LockSupport.parkNanos(IDLE_WAIT);
+			}
+		}
+		while (done.get() < tail.get()) {
+			LockSupport.parkNanos(IDLE_WAIT);
+		}
+	}
+
+	/**
+	 * Publish a point in the next slot of the ring buffer.
+	 * @param line Line to add the point to
+	 * @param x X position centred around 0
+	 * @param y Y position centred around 0
+	 * @param d Dimension the point was captured in
+	 * @return true, if there was room for the point
+	 */
+	private boolean offer(Line line, int x, int y, Dimension d) {
+		long slot = tail.get();
+		if (slot - head.get() >= CAPACITY) {
+			return false;
+		}
+		int index = (int) slot & (CAPACITY-1);
+		coords[index*2] = x;
+		coords[index*2+1] = y;
+		lines[index] = line;
+		sizes[index] = d;
+		lineSettings[index] = copiedSettings;
+		// Volatile write so the capture thread sees the point or is seen to be waiting
+		tail.set(slot+1);
+		if (waiting) {
+			LockSupport.unpark(thread);
+		}
+		return true;
+	}
+
+	/**
+	 * Start the capture thread. It is a daemon so never prevents the application closing.
+	 * Errors adding points are reported without stopping the thread.
+	 */
+	private void start() {
+		thread = new Thread(new Runnable() {
+			public void run() {
+				while (true) {
+					try {
+						drain();
+					} catch (RuntimeException e) {
+						e.printStackTrace();
+					}
+				}
+			}
+		}, "Doily Capture");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Add every point queued to its line, parking until a point is queued if there are none.
+	 * Consecutive points of the same line are added in batches.
+	 */
+	private void drain() {
+		long slot = head.get();
+		long end = tail.get();
+		if (slot == end) {
+			// Producer only unparks once it sees the flag, so check again after setting it
+			waiting = true;
+			if (tail.get() == slot) {
+				LockSupport.park(this);
+			}
+			waiting = false;
+			return;
+		}
+		while (slot < end) {
+			int index = (int) slot & (CAPACITY-1);
+			Line line = lines[index];
+			Dimension d = sizes[index];
+			DoilySettings copy = lineSettings[index];
+			int count = 0;
+			while (slot < end && count < BATCH_SIZE) {
+				index = (int) slot & (CAPACITY-1);
+				if (lines[index] != line || !sizes[index].equals(d) 
+						|| lineSettings[index] != copy) {
+					break;
+				}
+				batch[count*2] = coords[index*2];
+				batch[count*2+1] = coords[index*2+1];
+				lines[index] = null;
+				sizes[index] = null;
+				lineSettings[index] = null;
+				count++;
+				slot++;
+			}
+			// Slots are copied so can be reused before the batch is added
+			head.lazySet(slot);
+			try {
+				int start = line.addPoints(batch, count, d, copy);
+				listener.pointsCaptured(line, start);
+			}
+			finally {
+				done.lazySet(slot);
+			}
+		}
+	}
+
+}
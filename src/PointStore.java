@@ -0,0 +1,164 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * PointStore class. Holds scaled line points off the heap in a memory-mapped file so that
+ * doilies of tens of millions of points neither fill the heap nor slow garbage collection.
+ * Points are appended a line at a time and never changed, so lines can read them as views
+ * over a range of the store. The file is mapped in fixed size chunks as it grows.
+ *
+ * Digital Doily - COMP1206 Coursework
+ * @author David Jones [dsj1n15]
+ */
+public class PointStore {
+	private static final int POINT_DOUBLES = 2;              // Orbit and clockwise scale of a point
+	private static final int CHUNK_POINTS = 1 << 22;         // Points mapped at a time (64MiB)
+
+	// Instance variables
+	private File file;                                       // File backing the store
+	private RandomAccessFile access;                         // Open handle on the file
+	private FileChannel channel;                             // Channel chunks are mapped from
+	private volatile DoubleBuffer[] chunks;                  // Mapped chunks in file order
+	private volatile long pointCount;                        // Number of points held
+
+	/**
+	 * Instantiates a new point store backed by a temporary file that is deleted on exit.
+	 * @throws IOException Signals that an I/O exception has occurred
+	 */
+	public PointStore() throws IOException {
+		this(File.createTempFile("doily", ".points"));
+		file.deleteOnExit();
+	}
+
+	/**
+	 * Instantiates a new point store backed by a given file. Any existing contents are
+	 * discarded.
+	 * @param file File to map points into
+	 * @throws IOException Signals that an I/O exception has occurred
+	 */
+	public PointStore(File file) throws IOException {
+		this.file = file;
+		access = new RandomAccessFile(file, "rw");
+		access.setLength(0);
+		channel = access.getChannel();
+		chunks = new DoubleBuffer[0];
+	}
+
+	/**
+	 * Appends a range of points to the end of the store.
+	 * @param orbitScales Positions as a percentage of the radius
+	 * @param clockwiseScales Positions as a percentage of the clockwise arc length
+	 * @param count Number of points to append from the start of the arrays
+	 * @return Index of the first appended point
+	 * @throws IOException Signals that an I/O exception has occurred
+	 */
+	public synchronized long append(double[] orbitScales, double[] clockwiseScales, int count)
+			throws IOException {
+		if (channel == null) {
+			throw new IOException("Point store is closed");
+		}
+		long start = pointCount;
+		for (int i=0; i < count; i++) {
+			long index = start + i;
+			DoubleBuffer chunk = getChunk(index);
+			int offset = (int) (index % CHUNK_POINTS)*POINT_DOUBLES;
+			chunk.put(offset, orbitScales[i]);
+			chunk.put(offset+1, clockwiseScales[i]);
+		}
+		pointCount = start + count;
+		return start;
+	}
+
+	/**
+	 * Gets the mapped chunk holding a point, mapping new chunks up to it if required.
+	 * @param index Index of the point
+	 * @return The chunk
+	 * @throws IOException Signals that an I/O exception has occurred
+	 */
+	private DoubleBuffer getChunk(long index) throws IOException {
+		int chunk = (int) (index / CHUNK_POINTS);
+		if (chunk >= chunks.length) {
+			DoubleBuffer[] mapped = Arrays.copyOf(chunks, chunk+1);
+			long size = (long) CHUNK_POINTS*POINT_DOUBLES*Double.BYTES;
+			for (int i=chunks.length; i <= chunk; i++) {
+				mapped[i] = channel.map(FileChannel.MapMode.READ_WRITE, i*size, size)
+						.order(ByteOrder.nativeOrder()).asDoubleBuffer();
+			}
+			chunks = mapped;
+		}
+		return chunks[chunk];
+	}
+
+	/**
+	 * Gets the orbit scale of a point.
+	 * @param index Index of the point
+	 * @return The orbit scale
+	 */
+	public double getOrbitScale(long index) {
+		return chunks[(int) (index / CHUNK_POINTS)].get((int) (index % CHUNK_POINTS)*POINT_DOUBLES);
+	}
+
+	/**
+	 * Gets the clockwise scale of a point.
+	 * @param index Index of the point
+	 * @return The clockwise scale
+	 */
+	public double getClockwiseScale(long index) {
+		return chunks[(int) (index / CHUNK_POINTS)].get((int) (index % CHUNK_POINTS)*POINT_DOUBLES + 1);
+	}
+
+	/**
+	 * Convert a range of stored points to positions around [0,0], reading them straight
+	 * from the mapped file. Positions are stored interleaved as x,y pairs.
+	 * @param start Index of the first point to convert
+	 * @param end Index after the last point to convert
+	 * @param radius Radius to position points with
+	 * @param sectorAngle Angle of a single sector in radians
+	 * @param out Array to store positions in
+	 * @param offset Index in the array of the first x position
+	 */
+	public void getPositions(long start, long end, double radius, double sectorAngle,
+			float[] out, int offset) {
+		DoubleBuffer[] mapped = chunks;
+		for (long i=start; i < end; i++) {
+			DoubleBuffer chunk = mapped[(int) (i / CHUNK_POINTS)];
+			int index = (int) (i % CHUNK_POINTS)*POINT_DOUBLES;
+			LinePoint.getPosition(chunk.get(index), chunk.get(index+1), radius, sectorAngle,
+					out, offset + (int) (i-start)*2);
+		}
+	}
+
+	/**
+	 * Gets the number of points held.
+	 * @return The point count
+	 */
+	public long getPointCount() {
+		return pointCount;
+	}
+
+	/**
+	 * Gets the file backing the store.
+	 * @return The file
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Close the file backing the store so no more points can be appended. Mapped chunks stay
+	 * readable until they are garbage collected.
+	 * @throws IOException Signals that an I/O exception has occurred
+	 */
+	public synchronized void close() throws IOException {
+		if (channel != null) {
+			channel = null;
+			access.close();
+		}
+	}
+
+}
@@ -0,0 +1,212 @@
+import java.awt.Point;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Arc2D;
+import java.awt.geom.Area;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
+
+/**
+ * PolarRegion class. Holds the polar extent of a line using the same scaled positioning as
+ * LinePoint, so that the area a line covers in every sector can be found at any size.
+ * 
+ * Digital Doily - COMP1206 Coursework
+ * @author David Jones [dsj1n15]
+ */
+public class PolarRegion {
+	private static final int MAX_WEDGES = 256;   // Wedges covered one at a time, more cover a ring
+
+	// Scaled extent
+	private double minOrbit;        // Closest position to the centre as a percentage of the radius
+	private double maxOrbit;        // Furthest position from the centre as a percentage of the radius
+	private double minClockwise;    // Lowest clockwise position as a percentage of the arc length
+	private double maxClockwise;    // Highest clockwise position as a percentage of the arc length
+	private boolean reflect;        // Whether the region is also reflected in every sector
+
+	/**
+	 * Instantiates a new polar region.
+	 * @param minOrbit Closest position to the centre as a percentage of the radius
+	 * @param maxOrbit Furthest position from the centre as a percentage of the radius
+	 * @param minClockwise Lowest clockwise position as a percentage of the arc length
+	 * @param maxClockwise Highest clockwise position as a percentage of the arc length
+	 * @param reflect Whether the region is also reflected in every sector
+	 */
+	public PolarRegion(double minOrbit, double maxOrbit, double minClockwise, double maxClockwise,
+			boolean reflect) {
+		this.minOrbit = minOrbit;
+		this.maxOrbit = maxOrbit;
+		this.minClockwise = minClockwise;
+		this.maxClockwise = maxClockwise;
+		this.reflect = reflect;
+	}
+
+	/**
+	 * Gets the closest position to the centre.
+	 * @return The minimum orbit scale
+	 */
+	public double getMinOrbit() {
+		return minOrbit;
+	}
+
+	/**
+	 * Gets the furthest position from the centre.
+	 * @return The maximum orbit scale
+	 */
+	public double getMaxOrbit() {
+		return maxOrbit;
+	}
+
+	/**
+	 * Gets the lowest clockwise position.
+	 * @return The minimum clockwise scale
+	 */
+	public double getMinClockwise() {
+		return minClockwise;
+	}
+
+	/**
+	 * Gets the highest clockwise position.
+	 * @return The maximum clockwise scale
+	 */
+	public double getMaxClockwise() {
+		return maxClockwise;
+	}
+
+	/**
+	 * Checks if the region is reflected.
+	 * @return true, if reflected
+	 */
+	public boolean isReflect() {
+		return reflect;
+	}
+
+	/**
+	 * Checks whether the region covers every angle.
+	 * @return true, if the clockwise span covers a full sector
+	 */
+	public boolean isFullSector() {
+		return maxClockwise - minClockwise >= 1;
+	}
+
+	/**
+	 * Create a region grown by a distance in pixels at a given display radius. Near the centre
+	 * the distance can cover every angle, in which case the region covers a full sector.
+	 * @param pixels Distance to grow by
+	 * @param radius The absolute radius
+	 * @param sectors Number of sectors
+	 * @return The padded region
+	 */
+	public PolarRegion pad(double pixels, int radius, int sectors) {
+		double orbitPad = pixels/radius;
+		double inner = minOrbit*radius;
+		double clockwisePad;
+		if (pixels >= inner) {
+			clockwisePad = 1;
+		}
+		else {
+			clockwisePad = Math.asin(pixels/inner)/DoilyUtilities.getSectorAngle(sectors);
+		}
+		return new PolarRegion(Math.max(minOrbit - orbitPad, 0), maxOrbit + orbitPad,
+				minClockwise - clockwisePad, maxClockwise + clockwisePad, reflect);
+	}
+
+	/**
+	 * Checks whether any sector copy of this region intersects any sector copy of another.
+	 * @param other Region to check against
+	 * @return true, if the regions intersect
+	 */
+	public boolean intersects(PolarRegion other) {
+		// Rings must overlap
+		if (other.minOrbit > maxOrbit || other.maxOrbit < minOrbit) {
+			return false;
+		}
+		// Angles must overlap within a sector, including reflected copies (negated angles)
+		if (overlapsInSector(minClockwise, maxClockwise, other.minClockwise, other.maxClockwise)) {
+			return true;
+		}
+		if (reflect && overlapsInSector(-maxClockwise, -minClockwise, other.minClockwise, other.maxClockwise)) {
+			return true;
+		}
+		if (other.reflect && overlapsInSector(minClockwise, maxClockwise, -other.maxClockwise, -other.minClockwise)) {
+			return true;
+		}
+		// Both reflected copies overlap only if the originals do
+		return false;
+	}
+
+	/**
+	 * Checks whether two clockwise spans overlap once wrapped to a single sector.
+	 * @param lowerA Lower bound of first span
+	 * @param upperA Upper bound of first span
+	 * @param lowerB Lower bound of second span
+	 * @param upperB Upper bound of second span
+	 * @return true, if the spans overlap
+	 */
+	private static boolean overlapsInSector(double lowerA, double upperA, double lowerB, double upperB) {
+		if (upperA - lowerA >= 1 || upperB - lowerB >= 1) {
+			return true;
+		}
+		// Move second span to start within a sector of the first
+		double shift = Math.floor(lowerB - lowerA);
+		lowerB -= shift;
+		upperB -= shift;
+		// Overlap directly or after wrapping the second span back a sector
+		return lowerB <= upperA || upperB - 1 >= lowerA;
+	}
+
+	/**
+	 * Create a shape covering every sector copy of the region on a display.
+	 * @param centre The absolute centre
+	 * @param radius The absolute radius
+	 * @param sectors Number of sectors
+	 * @return The covered shape
+	 */
+	public Shape toShape(Point centre, int radius, int sectors) {
+		double outer = maxOrbit*radius;
+		double inner = minOrbit*radius;
+		// Every angle is covered, or wedges are too many to join, so the region is a ring
+		if (isFullSector() || sectors*(reflect ? 2 : 1) > MAX_WEDGES) {
+			Area ring = new Area(new Ellipse2D.Double(centre.x-outer, centre.y-outer, outer*2, outer*2));
+			ring.subtract(new Area(new Ellipse2D.Double(centre.x-inner, centre.y-inner, inner*2, inner*2)));
+			return ring;
+		}
+		// Union of a wedge of the ring per sector (and reflection), all wound the same way
+		double sectorAngle = DoilyUtilities.getSectorAngle(sectors);
+		Path2D wedges = new Path2D.Double(Path2D.WIND_NON_ZERO);
+		for (int i=0; i < sectors; i++) {
+			AffineTransform rotate = AffineTransform.getRotateInstance(sectorAngle*i, centre.x, centre.y);
+			wedges.append(rotate.createTransformedShape(
+					createWedge(centre, inner, outer, minClockwise, maxClockwise, sectorAngle)), false);
+			if (reflect) {
+				wedges.append(rotate.createTransformedShape(
+						createWedge(centre, inner, outer, -maxClockwise, -minClockwise, sectorAngle)), false);
+			}
+		}
+		return wedges;
+	}
+
+	/**
+	 * Create a single wedge of a ring between two clockwise positions.
+	 * @param centre The absolute centre
+	 * @param inner Inner radius of the ring
+	 * @param outer Outer radius of the ring
+	 * @param lower Lower clockwise position as a percentage of the arc length
+	 * @param upper Upper clockwise position as a percentage of the arc length
+	 * @param sectorAngle The absolute sector angle in radians
+	 * @return The wedge
+	 */
+	private static Shape createWedge(Point centre, double inner, double outer, double lower,
+			double upper, double sectorAngle) {
+		// Arc angles are anti-clockwise from 3 o'clock, sectors are clockwise from 12 o'clock
+		double start = 90 - Math.toDegrees(lower*sectorAngle);
+		double extent = -Math.toDegrees((upper-lower)*sectorAngle);
+		Path2D wedge = new Path2D.Double();
+		wedge.append(new Arc2D.Double(centre.x-outer, centre.y-outer, outer*2, outer*2,
+				start, extent, Arc2D.OPEN), false);
+		wedge.append(new Arc2D.Double(centre.x-inner, centre.y-inner, inner*2, inner*2,
+				start+extent, -extent, Arc2D.OPEN), true);
+		wedge.closePath();
+		return wedge;
+	}
+
+}
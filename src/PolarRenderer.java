@@ -0,0 +1,564 @@
+import java.awt.Dimension;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * PolarRenderer class. Draws lines once into a texture covering a single sector in polar
+ * space, columns for the angle within the sector and rows for the distance from the centre,
+ * which is then remapped to every output pixel through a lookup table. Every copy of a line
+ * folds onto the same texels, so the cost of drawing depends on the size of the output and
+ * the area of the lines but not on the number of sectors.
+ * A texel is filled if its centre is within half the pen size of the line, and output pixels
+ * take the texel they land in (or a blend of the four nearest when filtering), so edges can
+ * move by up to a texel compared to stroking. Columns are sized so a texel is no wider than
+ * a pixel at the furthest output pixel. Translucent lines are blended once per texel, not
+ * once per overlapping copy as when stroking.
+ *
+ * Digital Doily - COMP1206 Coursework
+ * @author David Jones [dsj1n15]
+ */
+public class PolarRenderer {
+	private static final double FLATNESS = 0.25;         // Maximum error of flattened curves in pixels
+	private static final int REMAP_ROWS = 32;             // Output rows remapped by each task
+	private static final int FRACTION_BITS = 8;           // Fixed point bits of lookup positions
+	private static final int FRACTION_ONE = 1 << FRACTION_BITS;
+	private static final int CACHED_LOOKUPS = 4;          // Lookup tables kept for reuse
+	private static final int LOOKUP_MAX_PIXELS = 1 << 22; // Largest output positions are stored for
+	private static final int CAPSULE_ARC_COLUMNS = 32;    // Widest capsule tested across its whole rows
+	// Lookup tables shared by all renderers, most recently used first
+	private static final ArrayList<Lookup> lookups = new ArrayList<Lookup>();
+
+	// Texture variables
+	private Lookup lookup;                   // Lookup table of the output size
+	private int[] texels;                    // ARGB texels, rows of columns
+	private int rowFirst;                    // First row held by the texture
+	private int rowLast;                     // Last row held by the texture
+	private int[] stamps;                    // Line that last wrote each texel (translucent only)
+	private int stamp;                       // Line being drawn
+	private float[] vertices = new float[64]; // Positions of a line as x,y pairs
+
+	/**
+	 * Instantiates a new polar renderer for an output size, covering only the rows that can
+	 * reach part of the output.
+	 * @param d Dimension of the output
+	 * @param sectors Number of sectors
+	 * @param area Area of the output that will be remapped
+	 */
+	public PolarRenderer(Dimension d, int sectors, Rectangle area) {
+		lookup = getLookup(d, sectors);
+		Point centre = lookup.centre;
+		// Closest and furthest distance of the area from the centre, padded for filtering
+		double dx = Math.max(Math.max(area.x - centre.x, centre.x - area.getMaxX()), 0);
+		double dy = Math.max(Math.max(area.y - centre.y, centre.y - area.getMaxY()), 0);
+		double far = Math.hypot(Math.max(Math.abs(area.x - centre.x), Math.abs(area.getMaxX() - centre.x)),
+				Math.max(Math.abs(area.y - centre.y), Math.abs(area.getMaxY() - centre.y)));
+		rowFirst = Math.max((int) Math.hypot(dx, dy) - 1, 0);
+		rowLast = Math.min((int) far + 1, lookup.rows - 1);
+		texels = new int[Math.max(rowLast - rowFirst + 1, 0)*lookup.columns];
+	}
+
+	/**
+	 * Gets the lookup table for an output size, building it if not cached.
+	 * @param d Dimension of the output
+	 * @param sectors Number of sectors
+	 * @return The lookup table
+	 */
+	private static Lookup getLookup(Dimension d, int sectors) {
+		synchronized (lookups) {
+			for (int i=0; i < lookups.size(); i++) {
+				Lookup lookup = lookups.get(i);
+				if (lookup.width == d.width && lookup.height == d.height && lookup.sectors == sectors) {
+					lookups.add(0, lookups.remove(i));
+					return lookup;
+				}
+			}
+		}
+		// Build outside the lock, two threads building the same table is harmless
+		Lookup lookup = new Lookup(d, sectors);
+		synchronized (lookups) {
+			lookups.add(0, lookup);
+			if (lookups.size() > CACHED_LOOKUPS) {
+				lookups.remove(lookups.size() - 1);
+			}
+		}
+		return lookup;
+	}
+
+	/**
+	 * Draw a unit path, and all its copies, into the texture.
+	 * @param path Path positioned on a unit circle
+	 * @param reflect Whether the path is also drawn mirrored in every sector
+	 * @param radius The absolute radius
+	 * @param penSize Size of the pen in pixels, thinner pens are drawn a pixel wide
+	 * @param argb Colour to draw with
+	 */
+	public void drawLine(Path2D path, boolean reflect, int radius, int penSize, int argb) {
+		int count = getVertices(path, radius);
+		if (count == 0 || texels.length == 0) {
+			return;
+		}
+		// Translucent lines must only blend once into each texel
+		boolean opaque = (argb >>> 24) == 255;
+		if (!opaque && stamps == null) {
+			stamps = new int[texels.length];
+		}
+		stamp++;
+		double penRadius = Math.max(penSize, 1)/2.0;
+		for (int p=0; p < (count-1)*2; p += 2) {
+			addCapsule(vertices[p], vertices[p+1], vertices[p+2], vertices[p+3], penRadius,
+					reflect, argb, opaque);
+		}
+	}
+
+	/**
+	 * Clear the texture so further lines can be drawn for another remap.
+	 */
+	public void clear() {
+		Arrays.fill(texels, 0);
+	}
+
+	/**
+	 * Flatten a unit path into vertices scaled by a radius, centred around [0,0].
+	 * Only the vertices of the first subpath are kept as lines only ever have one.
+	 * @param path Path positioned on a unit circle
+	 * @param radius The absolute radius
+	 * @return Number of vertices, 0 if the path has no points
+	 */
+	private int getVertices(Path2D path, int radius) {
+		PathIterator iterator = path.getPathIterator(null, FLATNESS/radius);
+		float[] coords = new float[6];
+		int count = 0;
+		while (!iterator.isDone()) {
+			int type = iterator.currentSegment(coords);
+			if (type == PathIterator.SEG_MOVETO && count > 0) {
+				break;
+			}
+			if (type != PathIterator.SEG_CLOSE) {
+				if (count*2 + 4 > vertices.length) {
+					vertices = Arrays.copyOf(vertices, vertices.length*2);
+				}
+				vertices[count*2] = coords[0]*radius;
+				vertices[count*2 + 1] = coords[1]*radius;
+				count++;
+			}
+			iterator.next();
+		}
+		// A single point is drawn as a dot
+		if (count == 1) {
+			vertices[2] = vertices[0];
+			vertices[3] = vertices[1];
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Fill every texel whose centre is within a distance of a segment, in any sector.
+	 * Columns are walked in absolute angle around the centre and folded into the texture.
+	 * Capsules spanning few columns test every texel of their rows. Otherwise, as the capsule 
+	 * lies within a band of its width along the segment which each row's ring crosses in at 
+	 * most two arcs, only the columns of those arcs are tested.
+	 * @param ax X position of the start of the segment
+	 * @param ay Y position of the start of the segment
+	 * @param bx X position of the end of the segment
+	 * @param by Y position of the end of the segment
+	 * @param r Distance from the segment
+	 * @param reflect Whether to also fill the mirrored texels
+	 * @param argb Colour to fill with
+	 * @param opaque Whether the colour is fully opaque
+	 */
+	private void addCapsule(double ax, double ay, double bx, double by, double r,
+			boolean reflect, int argb, boolean opaque) {
+		// Distance range of the capsule
+		double dx = bx - ax;
+		double dy = by - ay;
+		double length2 = dx*dx + dy*dy;
+		double t = (length2 > 0) ? Math.min(Math.max(-(ax*dx + ay*dy)/length2, 0), 1) : 0;
+		double near = Math.hypot(ax + t*dx, ay + t*dy);
+		double far = Math.max(Math.hypot(ax, ay), Math.hypot(bx, by)) + r;
+		int first = Math.max((int) Math.ceil(near - r - 0.5), rowFirst);
+		int last = Math.min((int) Math.floor(far - 0.5), rowLast);
+		if (first > last) {
+			return;
+		}
+		// Angle range of the capsule, unless it covers the centre
+		if (near > r) {
+			double angleA = Math.atan2(ax, -ay);
+			double angleB = Math.atan2(bx, -by);
+			double sweep = Math.IEEEremainder(angleB - angleA, 2*Math.PI);
+			double pad = Math.asin(r/near);
+			double lo = Math.min(angleA, angleA + sweep) - pad;
+			double hi = Math.max(angleA, angleA + sweep) + pad;
+			long columnFirst = (long) Math.floor(lo/lookup.columnAngle);
+			long columnLast = (long) Math.floor(hi/lookup.columnAngle);
+			if (columnLast - columnFirst < CAPSULE_ARC_COLUMNS) {
+				for (int row=first; row <= last; row++) {
+					addCapsuleColumns(row, columnFirst, columnLast, ax, ay, dx, dy, length2, r, 
+							reflect, argb, opaque);
+				}
+				return;
+			}
+		}
+		// Direction along the segment (any for a dot) and the normal to it
+		double length = Math.sqrt(length2);
+		double ux = (length > 0) ? dx/length : 1;
+		double uy = (length > 0) ? dy/length : 0;
+		double nx = uy;
+		double ny = -ux;
+		// Offset of the band from the centre, extent along it and the angle of its normal
+		double offset = nx*ax + ny*ay;
+		double alongFirst = ux*ax + uy*ay - r;
+		double alongLast = alongFirst + length + r*2;
+		double normalAngle = Math.atan2(nx, -ny);
+		for (int row=first; row <= last; row++) {
+			double distance = row + 0.5;
+			// Ring meets the band where the angle from the normal has a cosine within range
+			double cosHigh = (offset + r)/distance;
+			double cosLow = (offset - r)/distance;
+			if (cosLow > 1 || cosHigh < -1) {
+				continue;
+			}
+			double inner = Math.acos(Math.min(cosHigh, 1));
+			double outer = Math.acos(Math.max(cosLow, -1));
+			if (inner == 0 || outer == Math.PI) {
+				// Arcs either side of the normal join into one
+				double lo = (inner == 0) ? -outer : inner;
+				double hi = (inner == 0) ? outer : 2*Math.PI - inner;
+				addCapsuleArc(row, normalAngle + lo, normalAngle + hi, ax, ay, dx, dy, length2, 
+						r, reflect, argb, opaque);
+				continue;
+			}
+			// Skip either arc lying wholly beyond the ends of the segment
+			double sinInner = Math.sin(inner)*distance;
+			double sinOuter = Math.sin(outer)*distance;
+			double sinMin = Math.min(sinInner, sinOuter);
+			double sinMax = (inner <= Math.PI/2 && outer >= Math.PI/2) ? distance 
+					: Math.max(sinInner, sinOuter);
+			if (sinMax >= alongFirst && sinMin <= alongLast) {
+				addCapsuleArc(row, normalAngle + inner, normalAngle + outer, ax, ay, dx, dy, 
+						length2, r, reflect, argb, opaque);
+			}
+			if (-sinMin >= alongFirst && -sinMax <= alongLast) {
+				addCapsuleArc(row, normalAngle - outer, normalAngle - inner, ax, ay, dx, dy, 
+						length2, r, reflect, argb, opaque);
+			}
+		}
+	}
+
+	/**
+	 * Fill the texels of a row within an arc whose centres are within a distance of a segment.
+	 * The arc is padded by a column either side so no texel is missed to rounding.
+	 * @param row Row to fill
+	 * @param lo Absolute angle of the start of the arc
+	 * @param hi Absolute angle of the end of the arc
+	 * @param ax X position of the start of the segment
+	 * @param ay Y position of the start of the segment
+	 * @param dx X distance to the end of the segment
+	 * @param dy Y distance to the end of the segment
+	 * @param length2 Squared length of the segment
+	 * @param r Distance from the segment
+	 * @param reflect Whether to also fill the mirrored texels
+	 * @param argb Colour to fill with
+	 * @param opaque Whether the colour is fully opaque
+	 */
+	private void addCapsuleArc(int row, double lo, double hi, double ax, double ay, double dx, 
+			double dy, double length2, double r, boolean reflect, int argb, boolean opaque) {
+		long columnFirst = (long) Math.floor(lo/lookup.columnAngle - 0.5) - 1;
+		long columnLast = (long) Math.ceil(hi/lookup.columnAngle - 0.5) + 1;
+		addCapsuleColumns(row, columnFirst, columnLast, ax, ay, dx, dy, length2, r, reflect, 
+				argb, opaque);
+	}
+
+	/**
+	 * Fill the texels of a row within a range of columns whose centres are within a distance 
+	 * of a segment. Columns are counted in absolute angle, no more than a turn is filled.
+	 * @param row Row to fill
+	 * @param columnFirst First column to test
+	 * @param columnLast Last column to test
+	 * @param ax X position of the start of the segment
+	 * @param ay Y position of the start of the segment
+	 * @param dx X distance to the end of the segment
+	 * @param dy Y distance to the end of the segment
+	 * @param length2 Squared length of the segment
+	 * @param r Distance from the segment
+	 * @param reflect Whether to also fill the mirrored texels
+	 * @param argb Colour to fill with
+	 * @param opaque Whether the colour is fully opaque
+	 */
+	private void addCapsuleColumns(int row, long columnFirst, long columnLast, double ax, 
+			double ay, double dx, double dy, double length2, double r, boolean reflect, int argb, 
+			boolean opaque) {
+		int columns = lookup.columns;
+		columnLast = Math.min(columnLast, columnFirst + lookup.turnColumns - 1);
+		double distance = row + 0.5;
+		double r2 = r*r;
+		int index = (row - rowFirst)*columns;
+		for (long j=columnFirst; j <= columnLast; j++) {
+			int turnColumn = (int) Math.floorMod(j, (long) lookup.turnColumns);
+			double px = lookup.turnSin[turnColumn]*distance - ax;
+			double py = -lookup.turnCos[turnColumn]*distance - ay;
+			double s = (length2 > 0) ? Math.min(Math.max((px*dx + py*dy)/length2, 0), 1) : 0;
+			double ex = px - s*dx;
+			double ey = py - s*dy;
+			if (ex*ex + ey*ey <= r2) {
+				int column = turnColumn % columns;
+				fillTexel(index + column, argb, opaque);
+				if (reflect) {
+					fillTexel(index + columns - 1 - column, argb, opaque);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Fill a texel with a colour, blending translucent colours only once per line.
+	 * @param index Index of the texel
+	 * @param argb Colour to fill with
+	 * @param opaque Whether the colour is fully opaque
+	 */
+	private void fillTexel(int index, int argb, boolean opaque) {
+		if (opaque) {
+			texels[index] = argb;
+		}
+		else if (stamps[index] != stamp) {
+			stamps[index] = stamp;
+			texels[index] = blend(texels[index], argb);
+		}
+	}
+
+	/**
+	 * Blend a colour over another, both without premultiplied alpha.
+	 * @param dst Colour underneath
+	 * @param src Colour on top
+	 * @return The blended colour
+	 */
+	private static int blend(int dst, int src) {
+		int sa = src >>> 24;
+		int da = (dst >>> 24)*(255 - sa)/255;
+		int a = sa + da;
+		if (a == 0) {
+			return 0;
+		}
+		int rgb = 0;
+		for (int shift=0; shift <= 16; shift += 8) {
+			int c = (((src >> shift) & 0xFF)*sa + ((dst >> shift) & 0xFF)*da)/a;
+			rgb |= c << shift;
+		}
+		return (a << 24) | rgb;
+	}
+
+	/**
+	 * Create tasks that each remap a band of rows from the texture into an integer image,
+	 * leaving pixels not covered by any line transparent.
+	 * @param image Image of type TYPE_INT_ARGB to remap into
+	 * @param origin Position of the image's top left corner within the output
+	 * @param filter Whether to blend the four nearest texels, smoothing edges
+	 * @return The remap tasks, to be run on a fork join pool
+	 */
+	public ArrayList<RecursiveAction> createRemapTasks(BufferedImage image, Point origin,
+			boolean filter) {
+		if (image.getType() != BufferedImage.TYPE_INT_ARGB) {
+			throw new IllegalArgumentException("Image must hold integer ARGB pixels");
+		}
+		DataBufferInt buffer = (DataBufferInt) image.getRaster().getDataBuffer();
+		SinglePixelPackedSampleModel model =
+				(SinglePixelPackedSampleModel) image.getRaster().getSampleModel();
+		int[] pixels = buffer.getData();
+		int stride = model.getScanlineStride();
+		int offset = buffer.getOffset() - image.getRaster().getSampleModelTranslateY()*stride
+				- image.getRaster().getSampleModelTranslateX();
+		ArrayList<RecursiveAction> tasks = new ArrayList<RecursiveAction>();
+		for (int y=0; y < image.getHeight(); y += REMAP_ROWS) {
+			int bandFirst = y;
+			int bandLast = Math.min(y + REMAP_ROWS, image.getHeight());
+			tasks.add(new RecursiveAction() {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void compute() {
+					for (int row=bandFirst; row < bandLast; row++) {
+						remapRow(pixels, offset + row*stride, origin.x, origin.y + row,
+								image.getWidth(), filter);
+					}
+				}
+			});
+		}
+		return tasks;
+	}
+
+	/**
+	 * Remap part of a row of the output from the texture.
+	 * @param pixels Pixels to write to
+	 * @param index Index of the first pixel to write
+	 * @param x First column of the output
+	 * @param y Row of the output
+	 * @param width Number of pixels to write
+	 * @param filter Whether to blend the four nearest texels
+	 */
+	private void remapRow(int[] pixels, int index, int x, int y, int width, boolean filter) {
+		int columns = lookup.columns;
+		int table = y*lookup.width + x;
+		boolean stored = lookup.u != null;
+		for (int i=0; i < width; i++) {
+			int u = stored ? lookup.u[table + i] : lookup.getColumnPosition(x + i, y);
+			int v = stored ? lookup.v[table + i] : lookup.getRowPosition(x + i, y);
+			if (filter) {
+				pixels[index + i] = sampleFiltered(u, v, columns);
+			}
+			else {
+				int row = (v + FRACTION_ONE/2) >> FRACTION_BITS;
+				int column = (u + FRACTION_ONE/2) >> FRACTION_BITS;
+				pixels[index + i] = getTexel(column % columns, row);
+			}
+		}
+	}
+
+	/**
+	 * Sample the texture between texel centres, blending the four nearest texels.
+	 * Columns wrap around as the texture repeats in every sector.
+	 * @param u Fixed point column position from the first texel centre
+	 * @param v Fixed point row position from the first texel centre
+	 * @param columns Number of columns
+	 * @return The blended colour, without premultiplied alpha
+	 */
+	private int sampleFiltered(int u, int v, int columns) {
+		int column0 = u >> FRACTION_BITS;
+		int row0 = v >> FRACTION_BITS;
+		int fu = u & (FRACTION_ONE - 1);
+		int fv = v & (FRACTION_ONE - 1);
+		int column1 = (column0 + 1) % columns;
+		column0 = (column0 + columns) % columns;
+		int[] samples = {getTexel(column0, row0), getTexel(column1, row0),
+				getTexel(column0, row0 + 1), getTexel(column1, row0 + 1)};
+		int[] weights = {(FRACTION_ONE - fu)*(FRACTION_ONE - fv), fu*(FRACTION_ONE - fv),
+				(FRACTION_ONE - fu)*fv, fu*fv};
+		// Average premultiplied colours so transparent texels do not darken edges
+		long a = 0;
+		long[] c = new long[3];
+		for (int i=0; i < 4; i++) {
+			int alpha = samples[i] >>> 24;
+			a += (long) alpha*weights[i];
+			for (int k=0; k < 3; k++) {
+				c[k] += (long) ((samples[i] >> (k*8)) & 0xFF)*alpha*weights[i];
+			}
+		}
+		if (a == 0) {
+			return 0;
+		}
+		int argb = (int) ((a + FRACTION_ONE*FRACTION_ONE/2) >> (FRACTION_BITS*2)) << 24;
+		for (int k=0; k < 3; k++) {
+			argb |= (int) (c[k]/a) << (k*8);
+		}
+		return argb;
+	}
+
+	/**
+	 * Gets a texel, transparent if the row is not held.
+	 * @param column Column of the texel
+	 * @param row Row of the texel
+	 * @return The texel's colour
+	 */
+	private int getTexel(int column, int row) {
+		if (row < rowFirst || row > rowLast) {
+			return 0;
+		}
+		return texels[(row - rowFirst)*lookup.columns + column];
+	}
+
+	/**
+	 * Lookup class. Holds the texture position of every pixel of an output size and the
+	 * shape of the texture, which are only found once for each size and sector count.
+	 * Positions of larger outputs, such as exports, are found for each pixel as it is 
+	 * remapped instead of being stored.
+	 */
+	private static class Lookup {
+		// Output variables
+		private int width;               // Width of output
+		private int height;              // Height of output
+		private int sectors;             // Number of sectors
+		private Point centre;            // Centre of output
+		// Texture variables
+		private int columns;             // Columns covering a sector
+		private int rows;                // Rows covering the furthest pixel, one per pixel
+		private double columnAngle;      // Angle covered by a column
+		private int turnColumns;         // Columns covering a full turn
+		private double[] turnSin;        // Sine of the centre of every column of a turn
+		private double[] turnCos;        // Cosine of the centre of every column of a turn
+		private double sectorAngle;      // Angle covered by a sector
+		// Fixed point texture position of every pixel, from the first texel centre
+		private int[] u;                 // Column position (null if not stored)
+		private int[] v;                 // Row position (null if not stored)
+
+		/**
+		 * Instantiates a new lookup table, finding the texture position of every pixel if the
+		 * output is small enough for them to be stored.
+		 * @param d Dimension of the output
+		 * @param sectors Number of sectors
+		 */
+		public Lookup(Dimension d, int sectors) {
+			this.width = d.width;
+			this.height = d.height;
+			this.sectors = sectors;
+			this.centre = DoilyUtilities.getCentre(d);
+			sectorAngle = DoilyUtilities.getSectorAngle(sectors);
+			double furthest = Math.hypot(Math.max(centre.x, width - centre.x),
+					Math.max(centre.y, height - centre.y));
+			rows = (int) Math.ceil(furthest) + 1;
+			columns = Math.max((int) Math.ceil(furthest*sectorAngle), 1);
+			columnAngle = sectorAngle/columns;
+			turnColumns = columns*sectors;
+			turnSin = new double[turnColumns];
+			turnCos = new double[turnColumns];
+			for (int j=0; j < turnColumns; j++) {
+				turnSin[j] = Math.sin((j + 0.5)*columnAngle);
+				turnCos[j] = Math.cos((j + 0.5)*columnAngle);
+			}
+			if ((long) width*height > LOOKUP_MAX_PIXELS) {
+				return;
+			}
+			u = new int[width*height];
+			v = new int[width*height];
+			for (int y=0; y < height; y++) {
+				for (int x=0; x < width; x++) {
+					u[y*width + x] = getColumnPosition(x, y);
+					v[y*width + x] = getRowPosition(x, y);
+				}
+			}
+		}
+
+		/**
+		 * Find the column position of a pixel centre, folding its angle into the first sector.
+		 * @param x X position of the pixel
+		 * @param y Y position of the pixel
+		 * @return Fixed point column position from the first texel centre
+		 */
+		private int getColumnPosition(int x, int y) {
+			double angle = Math.atan2(x + 0.5 - centre.x, -(y + 0.5 - centre.y));
+			// Rounding can leave angles on a sector boundary just below zero
+			double within = Math.max(angle - Math.floor(angle/sectorAngle)*sectorAngle, 0);
+			double column = Math.min(within/columnAngle, columns) - 0.5;
+			return (int) Math.floor(column*FRACTION_ONE);
+		}
+
+		/**
+		 * Find the row position of a pixel centre.
+		 * @param x X position of the pixel
+		 * @param y Y position of the pixel
+		 * @return Fixed point row position from the first texel centre
+		 */
+		private int getRowPosition(int x, int y) {
+			double row = Math.hypot(x + 0.5 - centre.x, y + 0.5 - centre.y) - 0.5;
+			return Math.max((int) Math.floor(row*FRACTION_ONE), 0);
+		}
+
+	}
+
+}
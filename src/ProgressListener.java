@@ -0,0 +1,15 @@
+/**
+ * ProgressListener interface. Receives progress updates from long running tasks.
+ * 
+ * Digital Doily - COMP1206 Coursework
+ * @author David Jones [dsj1n15]
+ */
+public interface ProgressListener {
+
+	/**
+	 * Called whenever a task makes progress. May be called from any thread.
+	 * @param progress Fraction of the task complete, between 0 and 1
+	 */
+	void progressMade(double progress);
+
+}
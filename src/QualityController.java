@@ -0,0 +1,147 @@
+/**
+ * QualityController class. Chooses how much quality to give up when drawing a doily based on
+ * how long paints take. Paint times are averaged and compared against a frame budget, moving
+ * to a faster tier when over it and back to a better tier when well under it. A few paints
+ * are measured after every change so a single slow paint cannot cause a change. Better
+ * tiers are only moved to after a longer hold, and a better tier that proves too slow 
+ * doubles the hold before the next attempt, so the tier does not flap between neighbours.
+ *
+ * Digital Doily - COMP1206 Coursework
+ * @author David Jones [dsj1n15]
+ */
+public class QualityController {
+	// Quality tiers, each gives up more quality than the last
+	public static final int QUALITY_FULL = 0;
+	public static final int QUALITY_IMAGE = 1;
+	public static final int QUALITY_DRAFT = 2;
+	public static final int QUALITY_LOW_DETAIL = 3;
+	public static final String[] QUALITY_NAMES = {"Full", "Image", "Draft", "Low Detail"};
+	// Controller defaults
+	public static final long DEFAULT_FRAME_BUDGET = 16666667;   // Nanoseconds per paint (60fps)
+	private static final double SMOOTHING = 0.25;               // Weight of the newest paint time
+	private static final double UPGRADE_RATIO = 0.4;            // Fraction of budget to move up under
+	private static final int DOWNGRADE_PAINTS = 3;              // Paints measured before moving down
+	private static final int HOLD_PAINTS = 8;                   // Paints held before moving up
+	private static final int MAX_HOLD_PAINTS = 512;             // Longest hold before moving up
+
+	// Instance variables
+	private long frameBudget = DEFAULT_FRAME_BUDGET;            // Target nanoseconds per paint
+	private int tier = QUALITY_FULL;                            // Current tier
+	private double averageTime = -1;                            // Average paint time (-1 if none)
+	private long lastTime = -1;                                 // Last paint time (-1 if none)
+	private int paints;                                         // Paints measured in current tier
+	private int upgradeHold = HOLD_PAINTS;                      // Paints held before moving up
+	private boolean upgraded;                                   // Whether current tier was moved up to
+
+	/**
+	 * Record the time taken by a paint, changing tier if required. The first paint after a
+	 * change is not averaged as it redraws everything for the new tier.
+	 * @param time Time taken by the paint in nanoseconds
+	 * @return true, if the tier has changed
+	 */
+	public boolean recordPaint(long time) {
+		lastTime = time;
+		paints++;
+		if (paints == 1) {
+			return false;
+		}
+		averageTime = (averageTime < 0) ? time : averageTime + (time - averageTime)*SMOOTHING;
+		if (paints <= DOWNGRADE_PAINTS) {
+			return false;
+		}
+		// Move down as soon as over budget, a failed move up is held for longer next time
+		if (averageTime > frameBudget && tier < QUALITY_LOW_DETAIL) {
+			if (upgraded) {
+				upgradeHold = Math.min(upgradeHold*2, MAX_HOLD_PAINTS);
+			}
+			setTier(tier + 1, false);
+			return true;
+		}
+		// A move up that has stayed within budget for the hold has succeeded
+		if (upgraded && paints > upgradeHold) {
+			upgraded = false;
+			upgradeHold = HOLD_PAINTS;
+		}
+		// Only move up when well under budget and the hold has passed
+		if (averageTime < frameBudget*UPGRADE_RATIO && tier > QUALITY_FULL
+				&& paints > upgradeHold) {
+			setTier(tier - 1, true);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Change tier, discarding measurements of the last tier.
+	 * @param tier The new tier
+	 * @param upgraded Whether the new tier is better than the last
+	 */
+	private void setTier(int tier, boolean upgraded) {
+		this.tier = tier;
+		this.upgraded = upgraded;
+		averageTime = -1;
+		paints = 0;
+	}
+
+	/**
+	 * Return to the best tier, forgetting all measurements.
+	 */
+	public void reset() {
+		setTier(QUALITY_FULL, false);
+		lastTime = -1;
+		upgradeHold = HOLD_PAINTS;
+	}
+
+	/**
+	 * Gets the current tier.
+	 * @return The tier
+	 */
+	public int getTier() {
+		return tier;
+	}
+
+	/**
+	 * Gets the average time taken by paints in the current tier.
+	 * @return The average paint time in nanoseconds, -1 if not yet measured
+	 */
+	public long getAveragePaintTime() {
+		return Math.round(averageTime);
+	}
+
+	/**
+	 * Gets the time taken by the last paint.
+	 * @return The last paint time in nanoseconds, -1 if not yet measured
+	 */
+	public long getLastPaintTime() {
+		return lastTime;
+	}
+
+	/**
+	 * Gets the number of paints a better tier must stay under budget for before it is
+	 * trusted, longer after moves up that have failed.
+	 * @return The number of paints
+	 */
+	public int getUpgradeHold() {
+		return upgradeHold;
+	}
+
+	/**
+	 * Gets the target time for a paint.
+	 * @return The frame budget in nanoseconds
+	 */
+	public long getFrameBudget() {
+		return frameBudget;
+	}
+
+	/**
+	 * Sets the target time for a paint.
+	 * @param frameBudget The new frame budget in nanoseconds
+	 */
+	public void setFrameBudget(long frameBudget) {
+		if (frameBudget <= 0) {
+			throw new IllegalArgumentException("Frame budget must be positive");
+		}
+		this.frameBudget = frameBudget;
+	}
+
+}
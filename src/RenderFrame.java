@@ -0,0 +1,110 @@
+import java.awt.Dimension;
+import java.awt.Shape;
+import java.awt.image.BufferedImage;
+import java.util.TreeMap;
+
+/**
+ * RenderFrame class. Holds a lines layer, or regions of one, rendered by a RenderWorker.
+ * 
+ * Digital Doily - COMP1206 Coursework
+ * @author David Jones [dsj1n15]
+ */
+public class RenderFrame {
+	private long generation;                              // Generation of the render request
+	private BufferedImage image;                          // Rendered lines layer
+	private Dimension size;                               // Size the lines were drawn for
+	private int lineCount;                                // Number of lines drawn
+	private boolean complete;                             // Whether drawn at full resolution
+	private TreeMap<Integer, BufferedImage> checkpoints;  // Layers after intervals passed while drawing
+	private Shape clip;                                   // Area drawn (null for whole layer)
+
+	/**
+	 * Instantiates a new render frame.
+	 * @param generation Generation of the render request
+	 * @param image Rendered lines layer
+	 * @param size Size the lines were drawn for, the image is smaller if not complete
+	 * @param lineCount Number of lines drawn
+	 * @param complete Whether drawn at full resolution
+	 * @param checkpoints Layers after intervals passed while drawing (empty if not complete)
+	 */
+	public RenderFrame(long generation, BufferedImage image, Dimension size, int lineCount, 
+			boolean complete, TreeMap<Integer, BufferedImage> checkpoints) {
+		this.generation = generation;
+		this.image = image;
+		this.size = size;
+		this.lineCount = lineCount;
+		this.complete = complete;
+		this.checkpoints = checkpoints;
+	}
+
+	/**
+	 * Instantiates a new render frame holding only the lines within an area of a layer.
+	 * @param generation Generation of the render request
+	 * @param image Rendered lines, empty outside of the area
+	 * @param size Size the lines were drawn for
+	 * @param lineCount Number of lines considered for drawing
+	 * @param clip Area drawn
+	 */
+	public RenderFrame(long generation, BufferedImage image, Dimension size, int lineCount, 
+			Shape clip) {
+		this(generation, image, size, lineCount, true, new TreeMap<Integer, BufferedImage>());
+		this.clip = clip;
+	}
+
+	/**
+	 * Gets the generation of the render request.
+	 * @return The generation
+	 */
+	public long getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * Gets the rendered lines layer.
+	 * @return The image
+	 */
+	public BufferedImage getImage() {
+		return image;
+	}
+
+	/**
+	 * Gets the size the lines were drawn for.
+	 * @return The size
+	 */
+	public Dimension getSize() {
+		return size;
+	}
+
+	/**
+	 * Gets the number of lines drawn, always the first lines of the doily.
+	 * @return The line count
+	 */
+	public int getLineCount() {
+		return lineCount;
+	}
+
+	/**
+	 * Gets whether the frame was drawn at full resolution, rather than as a coarse preview.
+	 * @return true, if complete
+	 */
+	public boolean isComplete() {
+		return complete;
+	}
+
+	/**
+	 * Gets the layers stored after each checkpoint interval passed while drawing.
+	 * @return The checkpoints by number of lines drawn
+	 */
+	public TreeMap<Integer, BufferedImage> getCheckpoints() {
+		return checkpoints;
+	}
+
+	/**
+	 * Gets the area of the layer drawn, everything outside of it is empty.
+	 * @return The area, null if the whole layer was drawn
+	 */
+	public Shape getClip() {
+		return clip;
+	}
+
+}
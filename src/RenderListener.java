@@ -0,0 +1,16 @@
+/**
+ * RenderListener interface. Receives frames rendered by a RenderWorker.
+ * 
+ * Digital Doily - COMP1206 Coursework
+ * @author David Jones [dsj1n15]
+ */
+public interface RenderListener {
+
+	/**
+	 * Called on the Event Dispatch Thread whenever a frame of a render is finished, first
+	 * any coarse preview then the complete frame.
+	 * @param frame The rendered frame
+	 */
+	void frameRendered(RenderFrame frame);
+
+}
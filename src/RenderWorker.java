@@ -0,0 +1,305 @@
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.Shape;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.TreeMap;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * RenderWorker class. Renders lines layers on a background thread so full redraws of complex
+ * doilies never block the Event Dispatch Thread. Each render draws a snapshot of a doily, so
+ * later changes cannot affect it, and is given a generation number. Requesting or cancelling
+ * a render moves to a new generation, and a render stops as soon as it finds its generation 
+ * is stale. A coarse preview is drawn first, then the complete layer, and each is passed to
+ * a listener on the Event Dispatch Thread. Regions of a layer can also be rendered alone, 
+ * so an area drawn in draft quality can be replaced.
+ * 
+ * Digital Doily - COMP1206 Coursework
+ * @author David Jones [dsj1n15]
+ */
+public class RenderWorker {
+	private static final int COARSE_SCALE = 4;            // Division of preview size
+	private static final int LINES_PER_CHECK = 8;         // Lines drawn between cancellation checks
+
+	// Instance variables
+	private RenderListener listener;                      // Receives rendered frames
+	private Thread thread;                                // Render thread (null until started)
+	private volatile long generation;                     // Generation of the latest request
+	private Job job;                                      // Request waiting to be rendered
+
+	/**
+	 * Instantiates a new render worker. The render thread is started by the first request.
+	 * @param listener Listener to pass rendered frames to
+	 */
+	public RenderWorker(RenderListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Request a lines layer to be rendered, cancelling any earlier request.
+	 * @param snapshot Drawer of the doily to draw, configured as the layer should be drawn.
+	 * Neither must be changed or used elsewhere once requested
+	 * @param d Size to draw lines for
+	 * @param base Layer holding the first lines already drawn (null if none), it is copied 
+	 * so is never changed
+	 * @param baseCount Number of lines in the base layer
+	 * @param interval Number of lines between checkpoints
+	 * @param preview Whether to draw a coarse preview first
+	 * @return Generation of the request
+	 */
+	public synchronized long render(DoilyDrawer snapshot, Dimension d, BufferedImage base, 
+			int baseCount, int interval, boolean preview) {
+		if (thread == null) {
+			start();
+		}
+		job = new Job(++generation, snapshot, d, base, baseCount, interval, preview);
+		notifyAll();
+		return job.generation;
+	}
+
+	/**
+	 * Request the lines within a set of regions to be rendered as paths onto an otherwise
+	 * empty layer, cancelling any earlier request.
+	 * @param snapshot Doily to draw, must not be changed once requested
+	 * @param d Size to draw lines for
+	 * @param regions Regions to draw within, padded as by DoilyDrawer.getDamageRegion
+	 * @return Generation of the request
+	 */
+	public synchronized long render(DoilyState snapshot, Dimension d, 
+			ArrayList<PolarRegion> regions) {
+		if (thread == null) {
+			start();
+		}
+		job = new Job(++generation, snapshot, d, regions);
+		notifyAll();
+		return job.generation;
+	}
+
+	/**
+	 * Cancel any render in progress or waiting.
+	 */
+	public synchronized void cancel() {
+		generation++;
+		job = null;
+	}
+
+	/**
+	 * Start the render thread. It is a daemon so never prevents the application closing.
+	 */
+	private void start() {
+		thread = new Thread(new Runnable() {
+			public void run() {
+				while (true) {
+					try {
+						render(take());
+					} catch (InterruptedException e) {
+						return;
+					} catch (RuntimeException e) {
+						e.printStackTrace();
+					}
+				}
+			}
+		}, "Doily Render");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Wait for the next request to render.
+	 * @return The request
+	 * @throws InterruptedException If interrupted while waiting
+	 */
+	private synchronized Job take() throws InterruptedException {
+		while (job == null) {
+			wait();
+		}
+		Job next = job;
+		job = null;
+		return next;
+	}
+
+	/**
+	 * Render a request, passing each frame drawn to the listener. Stops without passing a 
+	 * frame if the request becomes stale.
+	 * @param job Request to render
+	 */
+	private void render(Job job) {
+		if (job.regions != null) {
+			renderRegions(job);
+			return;
+		}
+		DoilyDrawer drawer = job.drawer;
+		int count = job.doily.lines.size();
+		// Coarse preview drawn from scratch at a fraction of the size
+		if (job.preview) {
+			Dimension coarse = new Dimension(Math.max(job.size.width/COARSE_SCALE, 1), 
+					Math.max(job.size.height/COARSE_SCALE, 1));
+			BufferedImage image = new BufferedImage(coarse.width, coarse.height, 
+					BufferedImage.TYPE_INT_ARGB);
+			if (!drawLines(job, drawer, image, coarse, 0, count, null, null)) {
+				return;
+			}
+			publish(new RenderFrame(job.generation, image, job.size, count, false, 
+					new TreeMap<Integer, BufferedImage>()));
+		}
+		// Complete layer continues from the base layer
+		BufferedImage image;
+		if (job.base != null) {
+			image = new BufferedImage(job.base.getColorModel(), job.base.copyData(null), 
+					job.base.isAlphaPremultiplied(), null);
+		}
+		else {
+			image = new BufferedImage(job.size.width, job.size.height, BufferedImage.TYPE_INT_ARGB);
+		}
+		TreeMap<Integer, BufferedImage> checkpoints = new TreeMap<Integer, BufferedImage>();
+		if (!drawLines(job, drawer, image, job.size, job.baseCount, count, checkpoints, null)) {
+			return;
+		}
+		publish(new RenderFrame(job.generation, image, job.size, count, true, checkpoints));
+	}
+
+	/**
+	 * Render a request for regions of a layer, passing the frame drawn to the listener. Only
+	 * lines reaching the regions are drawn, clipped to them.
+	 * @param job Request to render
+	 */
+	private void renderRegions(Job job) {
+		DoilyDrawer drawer = new DoilyDrawer(job.doily);
+		ArrayList<Line> lines = new ArrayList<Line>();
+		for (Line line : job.doily.lines) {
+			if (drawer.intersects(line, job.regions, job.size)) {
+				lines.add(line);
+			}
+		}
+		// Repairs are drawn as paths unless remapped, as by DoilyDrawer.drawLines for a region
+		DoilySettings settings = job.doily.settings.clone();
+		if (settings.getRenderMode() != DoilyDrawer.RENDER_POLAR) {
+			settings.setRenderMode(DoilyDrawer.RENDER_PATHS);
+		}
+		DoilyDrawer regionDrawer = new DoilyDrawer(new DoilyState(settings, lines));
+		Shape clip = drawer.createDamageShape(job.regions, job.size);
+		BufferedImage image = new BufferedImage(job.size.width, job.size.height, 
+				BufferedImage.TYPE_INT_ARGB);
+		if (!drawLines(job, regionDrawer, image, job.size, 0, lines.size(), null, clip)) {
+			return;
+		}
+		publish(new RenderFrame(job.generation, image, job.size, job.doily.lines.size(), clip));
+	}
+
+	/**
+	 * Draw a range of lines onto an image a few at a time, checking for cancellation 
+	 * between them. A copy of the image is stored at every checkpoint interval passed, or 
+	 * only the last one passed if the drawer's batches are deferred.
+	 * @param job Request being rendered
+	 * @param drawer Drawer of the request's doily
+	 * @param image Image to draw to
+	 * @param d Size to draw lines for
+	 * @param start Index of the first line to draw
+	 * @param end Index after the last line to draw
+	 * @param checkpoints Map to store checkpoints in (null to store none)
+	 * @param clip Shape to clip drawing to (null for none)
+	 * @return true, if every line was drawn, false if the request became stale
+	 */
+	private boolean drawLines(Job job, DoilyDrawer drawer, BufferedImage image, Dimension d, 
+			int start, int end, TreeMap<Integer, BufferedImage> checkpoints, Shape clip) {
+		Graphics2D g = image.createGraphics();
+		if (clip != null) {
+			g.clip(clip);
+		}
+		DoilyDrawer.LineBatch batch = drawer.createBatch(g, d, true);
+		try {
+			for (int i=start; i < end; ) {
+				if (job.generation != generation) {
+					return false;
+				}
+				int next = Math.min(i + LINES_PER_CHECK, end);
+				if (checkpoints != null) {
+					// Stop at the next checkpoint so it can be stored
+					int checkpoint = i - i%job.interval + job.interval;
+					next = Math.min(next, checkpoint);
+				}
+				batch.drawLines(i, next);
+				// Deferred batches are only flushed for the last checkpoint
+				if (checkpoints != null && next%job.interval == 0 
+						&& (!batch.isDeferred() || next + job.interval > end)) {
+					batch.flush();
+					checkpoints.put(next, new BufferedImage(image.getColorModel(), 
+							image.copyData(null), image.isAlphaPremultiplied(), null));
+				}
+				i = next;
+			}
+			batch.flush();
+		}
+		finally {
+			g.dispose();
+		}
+		return job.generation == generation;
+	}
+
+	/**
+	 * Pass a frame to the listener on the Event Dispatch Thread.
+	 * @param frame The frame
+	 */
+	private void publish(final RenderFrame frame) {
+		SwingUtilities.invokeLater(new Runnable() {
+			public void run() {
+				listener.frameRendered(frame);
+			}
+		});
+	}
+
+	/**
+	 * Job class. A request to render a lines layer, or regions of one.
+	 */
+	private static class Job {
+		private long generation;           // Generation of the request
+		private DoilyState doily;          // Snapshot of doily to draw
+		private DoilyDrawer drawer;        // Drawer of snapshot (null for regions)
+		private Dimension size;            // Size to draw lines for
+		private BufferedImage base;        // Layer of first lines already drawn (null if none)
+		private int baseCount;             // Number of lines in the base layer
+		private int interval;              // Number of lines between checkpoints
+		private boolean preview;           // Whether to draw a coarse preview first
+		private ArrayList<PolarRegion> regions; // Regions to draw within (null for whole layer)
+
+		/**
+		 * Instantiates a new job.
+		 * @param generation Generation of the request
+		 * @param drawer Drawer of snapshot of doily to draw
+		 * @param size Size to draw lines for
+		 * @param base Layer of first lines already drawn (null if none)
+		 * @param baseCount Number of lines in the base layer
+		 * @param interval Number of lines between checkpoints
+		 * @param preview Whether to draw a coarse preview first
+		 */
+		public Job(long generation, DoilyDrawer drawer, Dimension size, BufferedImage base, 
+				int baseCount, int interval, boolean preview) {
+			this.generation = generation;
+			this.drawer = drawer;
+			this.doily = drawer.getDoily();
+			this.size = size;
+			this.base = base;
+			this.baseCount = baseCount;
+			this.interval = interval;
+			this.preview = preview;
+		}
+
+		/**
+		 * Instantiates a new job for regions of a layer.
+		 * @param generation Generation of the request
+		 * @param doily Snapshot of doily to draw
+		 * @param size Size to draw lines for
+		 * @param regions Regions to draw within
+		 */
+		public Job(long generation, DoilyState doily, Dimension size, 
+				ArrayList<PolarRegion> regions) {
+			this.generation = generation;
+			this.doily = doily;
+			this.size = size;
+			this.regions = regions;
+		}
+	}
+
+}